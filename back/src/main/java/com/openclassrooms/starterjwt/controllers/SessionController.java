@@ -2,51 +2,174 @@ package com.openclassrooms.starterjwt.controllers;
 
 
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.UnknownReferenceException;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.payload.response.MessageResponse;
+import com.openclassrooms.starterjwt.repository.SessionSummary;
+import com.openclassrooms.starterjwt.services.AttendanceExportService;
+import com.openclassrooms.starterjwt.services.Enrollment;
+import com.openclassrooms.starterjwt.services.ResourceVersion;
+import com.openclassrooms.starterjwt.services.SessionPage;
+import com.openclassrooms.starterjwt.services.SessionFilter;
 import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.services.SessionStreamService;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
-@CrossOrigin(origins = "*", maxAge = 3600)
+@CrossOrigin(origins = "*", maxAge = 3600, exposedHeaders = {SessionController.TOTAL_COUNT_HEADER, SessionController.NEXT_CURSOR_HEADER, HttpHeaders.ETAG})
 @RestController
 @RequestMapping("/api/session")
 @Log4j2
 public class SessionController {
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String NDJSON_VALUE = "application/x-ndjson";
+    static final String CSV_VALUE = "text/csv";
+    static final String ISO_SECONDS = "yyyy-MM-dd'T'HH:mm:ssXXX";
+    static final String ISO_DAY = "yyyy-MM-dd";
+
     private final SessionMapper sessionMapper;
     private final SessionService sessionService;
+    private final SessionStreamService sessionStreamService;
+    private final AttendanceExportService attendanceExportService;
 
 
     public SessionController(SessionService sessionService,
-                             SessionMapper sessionMapper) {
+                             SessionMapper sessionMapper,
+                             SessionStreamService sessionStreamService,
+                             AttendanceExportService attendanceExportService) {
         this.sessionMapper = sessionMapper;
         this.sessionService = sessionService;
+        this.sessionStreamService = sessionStreamService;
+        this.attendanceExportService = attendanceExportService;
     }
 
+    /**
+     * Answers 304 from the session row alone when the client's ETag or date is current, before reading
+     * participants or building the dto.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+    public ResponseEntity<?> findById(@PathVariable("id") String id, WebRequest webRequest) {
         try {
-            Session session = this.sessionService.getById(Long.valueOf(id));
+            SessionSummary session = this.sessionService.getSummaryById(Long.valueOf(id));
 
             if (session == null) {
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+            ResourceVersion version = this.sessionService.versionOf(session);
+            if (webRequest.checkNotModified(version.getEtag(), version.getLastModified())) {
+                return null;
+            }
+
+            List<Long> participantIds = this.sessionService.findParticipantIds(Collections.singletonList(session.getId()))
+                    .getOrDefault(session.getId(), Collections.emptyList());
+            return ResponseEntity.ok().body(this.sessionMapper.toDto(session, participantIds));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    /**
+     * Sessions in (date, id) order, optionally dated in [from, to), given by one teacher or with a seat left.
+     * Pass the same filters along with the cursor to read the next window.
+     */
     @GetMapping()
-    public ResponseEntity<?> findAll() {
-        List<Session> sessions = this.sessionService.findAll();
+    public ResponseEntity<?> findAll(@RequestParam(value = "page", required = false) Integer page,
+                                     @RequestParam(value = "size", required = false) Integer size,
+                                     @RequestParam(value = "cursor", required = false) String cursor,
+                                     @RequestParam(value = "from", required = false)
+                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME, fallbackPatterns = {ISO_SECONDS, ISO_DAY}) Date from,
+                                     @RequestParam(value = "to", required = false)
+                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME, fallbackPatterns = {ISO_SECONDS, ISO_DAY}) Date to,
+                                     @RequestParam(value = "teacher_id", required = false) Long teacherId,
+                                     @RequestParam(value = "hasFreeSeats", defaultValue = "false") boolean hasFreeSeats,
+                                     WebRequest webRequest) {
+        if (page != null && cursor != null) {
+            return ResponseEntity.badRequest().build();
+        }
+        SessionFilter filter = new SessionFilter(from, to, teacherId, hasFreeSeats);
+
+        ResourceVersion version = this.sessionService.getListVersion();
+        if (webRequest.checkNotModified(version.getEtag(), version.getLastModified())) {
+            return null;
+        }
+
+        SessionPage sessionPage = cursor != null
+                ? this.sessionService.findAfter(cursor, size, filter)
+                : this.sessionService.findPage(page != null ? page : 0, size, filter);
+
+        HttpHeaders headers = new HttpHeaders();
+        if (sessionPage.getTotalCount() != null) {
+            headers.set(TOTAL_COUNT_HEADER, String.valueOf(sessionPage.getTotalCount()));
+        }
+        if (sessionPage.getNextCursor() != null) {
+            headers.set(NEXT_CURSOR_HEADER, sessionPage.getNextCursor());
+        }
+        return ResponseEntity.ok().headers(headers).body(sessionPage.getSessions().stream()
+                .map(session -> this.sessionMapper.toDto(session, sessionPage.participantIdsOf(session.getId())))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Every session in one JSON array, written while the rows are read instead of being collected first.
+     */
+    @GetMapping("/stream")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void stream(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        this.sessionStreamService.writeJsonArray(response.getOutputStream());
+    }
+
+    /**
+     * Every session after the {@code after} session id, with its teacher and participant emails, as NDJSON or CSV.
+     * Compressed on the fly when the client accepts gzip.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void export(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                       @RequestParam(value = "after", required = false) Long after,
+                       @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                       HttpServletResponse response) throws IOException {
+        boolean csv = "csv".equals(format);
+        if (!csv && !"ndjson".equals(format)) {
+            throw new BadRequestException();
+        }
+
+        response.setContentType(csv ? CSV_VALUE : NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=attendance." + format);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = acceptsGzip(acceptEncoding);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
 
-        return ResponseEntity.ok().body(this.sessionMapper.toDto(sessions));
+        try (OutputStream out = gzip ? new GZIPOutputStream(response.getOutputStream()) : response.getOutputStream()) {
+            if (csv) {
+                this.attendanceExportService.exportCsv(out, after);
+            } else {
+                this.attendanceExportService.exportNdjson(out, after);
+            }
+        }
     }
 
     @PostMapping()
@@ -62,7 +185,7 @@ public class SessionController {
     @PutMapping("{id}")
     public ResponseEntity<?> update(@PathVariable("id") String id, @Valid @RequestBody SessionDto sessionDto) {
         try {
-            Session session = this.sessionService.update(Long.parseLong(id), this.sessionMapper.toEntity(sessionDto));
+            Session session = this.sessionService.update(Long.parseLong(id), this.sessionMapper.toDetails(sessionDto));
 
             return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
         } catch (NumberFormatException e) {
@@ -89,9 +212,9 @@ public class SessionController {
     @PostMapping("{id}/participate/{userId}")
     public ResponseEntity<?> participate(@PathVariable("id") String id, @PathVariable("userId") String userId) {
         try {
-            this.sessionService.participate(Long.parseLong(id), Long.parseLong(userId));
+            Enrollment enrollment = this.sessionService.participate(Long.parseLong(id), Long.parseLong(userId));
 
-            return ResponseEntity.ok().build();
+            return enrollment == Enrollment.WAITLISTED ? ResponseEntity.accepted().build() : ResponseEntity.ok().build();
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -107,4 +230,22 @@ public class SessionController {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    @ExceptionHandler(UnknownReferenceException.class)
+    public ResponseEntity<MessageResponse> handleUnknownReference(UnknownReferenceException e) {
+        return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+    }
 }
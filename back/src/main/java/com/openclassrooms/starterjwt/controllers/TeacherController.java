@@ -2,12 +2,15 @@ package com.openclassrooms.starterjwt.controllers;
 
 import com.openclassrooms.starterjwt.mapper.TeacherMapper;
 import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.services.ResourceVersion;
 import com.openclassrooms.starterjwt.services.TeacherService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import java.util.List;
 
-@CrossOrigin(origins = "*", maxAge = 3600)
+@CrossOrigin(origins = "*", maxAge = 3600, exposedHeaders = HttpHeaders.ETAG)
 @RestController
 @RequestMapping("/api/teacher")
 public class TeacherController {
@@ -22,7 +25,7 @@ public class TeacherController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+    public ResponseEntity<?> findById(@PathVariable("id") String id, WebRequest webRequest) {
         try {
             Teacher teacher = this.teacherService.findById(Long.valueOf(id));
 
@@ -30,6 +33,11 @@ public class TeacherController {
                 return ResponseEntity.notFound().build();
             }
 
+            ResourceVersion version = this.teacherService.versionOf(teacher);
+            if (webRequest.checkNotModified(version.getEtag(), version.getLastModified())) {
+                return null;
+            }
+
             return ResponseEntity.ok().body(this.teacherMapper.toDto(teacher));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
@@ -37,9 +45,14 @@ public class TeacherController {
     }
 
     @GetMapping()
-    public ResponseEntity<?> findAll() {
+    public ResponseEntity<?> findAll(WebRequest webRequest) {
         List<Teacher> teachers = this.teacherService.findAll();
 
+        ResourceVersion version = this.teacherService.versionOf(teachers);
+        if (webRequest.checkNotModified(version.getEtag(), version.getLastModified())) {
+            return null;
+        }
+
         return ResponseEntity.ok().body(this.teacherMapper.toDto(teachers));
     }
 }
@@ -0,0 +1,41 @@
+package com.openclassrooms.starterjwt.exception;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A request body refers to a teacher or users that do not exist. Every unknown id is reported at once;
+ * {@code SessionController} answers it with a 400 carrying this message.
+ */
+public class UnknownReferenceException extends RuntimeException {
+    private final Long teacherId;
+
+    private final List<Long> userIds;
+
+    public UnknownReferenceException(Long teacherId, Collection<Long> userIds) {
+        super(describe(teacherId, userIds));
+        this.teacherId = teacherId;
+        this.userIds = Collections.unmodifiableList(new ArrayList<>(userIds));
+    }
+
+    public Long getTeacherId() {
+        return teacherId;
+    }
+
+    public List<Long> getUserIds() {
+        return userIds;
+    }
+
+    private static String describe(Long teacherId, Collection<Long> userIds) {
+        StringBuilder message = new StringBuilder("Error:");
+        if (teacherId != null) {
+            message.append(" Unknown teacher id ").append(teacherId).append('.');
+        }
+        if (!userIds.isEmpty()) {
+            message.append(" Unknown user ids ").append(userIds).append('.');
+        }
+        return message.toString();
+    }
+}
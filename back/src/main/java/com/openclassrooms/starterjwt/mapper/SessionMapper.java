@@ -1,23 +1,36 @@
 package com.openclassrooms.starterjwt.mapper;
 
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.UnknownReferenceException;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionSummary;
 import com.openclassrooms.starterjwt.services.TeacherService;
 import com.openclassrooms.starterjwt.services.UserService;
+import org.mapstruct.AfterMapping;
+import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
 import org.mapstruct.Mappings;
+import org.mapstruct.Named;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Component
-@Mapper(componentModel = "spring", uses = {UserService.class}, imports = {Arrays.class, Collectors.class, Session.class, User.class, Collections.class, Optional.class})
+@Mapper(componentModel = "spring", imports = {Arrays.class, Collectors.class, Session.class, User.class, Collections.class, Optional.class})
 public abstract class SessionMapper implements EntityMapper<SessionDto, Session> {
 
     @Autowired
@@ -25,13 +38,34 @@ public abstract class SessionMapper implements EntityMapper<SessionDto, Session>
     @Autowired
     UserService userService;
 
+    @BeanMapping(qualifiedByName = "withParticipants")
     @Mappings({
             @Mapping(source = "description", target = "description"),
-            @Mapping(target = "teacher", expression = "java(sessionDto.getTeacher_id() != null ? this.teacherService.findById(sessionDto.getTeacher_id()) : null)"),
-            @Mapping(target = "users", expression = "java(Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList).stream().map(user_id -> { User user = this.userService.findById(user_id); if (user != null) { return user; } return null; }).collect(Collectors.toList()))"),
+            @Mapping(target = "teacher", ignore = true),
+            @Mapping(target = "users", ignore = true),
+            @Mapping(target = "participantCount", ignore = true),
+            @Mapping(target = "revision", ignore = true),
+            @Mapping(target = "lastModified", ignore = true),
     })
     public abstract Session toEntity(SessionDto sessionDto);
 
+    /**
+     * Maps the editable details of the dto for an update, which leaves participants to enrollment: the
+     * {@code users} of the dto are neither looked up nor validated, only the teacher is. Named, so that
+     * the list mapping keeps using {@link #toEntity(SessionDto)}.
+     */
+    @Named("toDetails")
+    @BeanMapping(qualifiedByName = "detailsOnly")
+    @Mappings({
+            @Mapping(source = "description", target = "description"),
+            @Mapping(target = "teacher", ignore = true),
+            @Mapping(target = "users", ignore = true),
+            @Mapping(target = "participantCount", ignore = true),
+            @Mapping(target = "revision", ignore = true),
+            @Mapping(target = "lastModified", ignore = true),
+    })
+    public abstract Session toDetails(SessionDto sessionDto);
+
 
     @Mappings({
             @Mapping(source = "description", target = "description"),
@@ -39,4 +73,42 @@ public abstract class SessionMapper implements EntityMapper<SessionDto, Session>
             @Mapping(target = "users", expression = "java(Optional.ofNullable(session.getUsers()).orElseGet(Collections::emptyList).stream().map(u -> u.getId()).collect(Collectors.toList()))"),
     })
     public abstract SessionDto toDto(Session session);
+
+    @Mappings({
+            @Mapping(source = "summary.teacherId", target = "teacher_id"),
+            @Mapping(source = "participantIds", target = "users"),
+    })
+    public abstract SessionDto toDto(SessionSummary summary, List<Long> participantIds);
+
+    /**
+     * Resolves the teacher and all the participants of the dto, the participants with a single
+     * {@code findAllById} query. Unknown ids are reported together in one {@link UnknownReferenceException}.
+     */
+    @AfterMapping
+    @Named("withParticipants")
+    protected void resolveReferences(SessionDto sessionDto, @MappingTarget Session.SessionBuilder session) {
+        Teacher teacher = sessionDto.getTeacher_id() != null ? this.teacherService.findById(sessionDto.getTeacher_id()) : null;
+
+        Set<Long> userIds = new LinkedHashSet<>(Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList));
+        Map<Long, User> usersById = userIds.isEmpty() ? Collections.emptyMap()
+                : this.userService.findAllById(userIds).stream().collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<Long> unknownUserIds = userIds.stream().filter(id -> !usersById.containsKey(id)).collect(Collectors.toList());
+        if ((sessionDto.getTeacher_id() != null && teacher == null) || !unknownUserIds.isEmpty()) {
+            throw new UnknownReferenceException(teacher == null ? sessionDto.getTeacher_id() : null, unknownUserIds);
+        }
+
+        session.teacher(teacher);
+        session.users(userIds.stream().map(usersById::get).collect(Collectors.toCollection(ArrayList::new)));
+    }
+
+    @AfterMapping
+    @Named("detailsOnly")
+    protected void resolveTeacher(SessionDto sessionDto, @MappingTarget Session.SessionBuilder session) {
+        Teacher teacher = sessionDto.getTeacher_id() != null ? this.teacherService.findById(sessionDto.getTeacher_id()) : null;
+        if (sessionDto.getTeacher_id() != null && teacher == null) {
+            throw new UnknownReferenceException(sessionDto.getTeacher_id(), Collections.emptyList());
+        }
+        session.teacher(teacher);
+    }
 }
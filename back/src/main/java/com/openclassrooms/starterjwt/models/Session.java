@@ -3,11 +3,13 @@ package com.openclassrooms.starterjwt.models;
 
 import lombok.*;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.Formula;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.*;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -24,7 +26,7 @@ import java.util.List;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@ToString
+@ToString(exclude = "users")
 public class Session {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -45,13 +47,29 @@ public class Session {
     @JoinColumn(name = "teacher_id", referencedColumnName = "id")
     private Teacher teacher;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "PARTICIPATE",
             joinColumns = @JoinColumn( name = "session_id" ),
             inverseJoinColumns = @JoinColumn( name = "user_id" ) )
     private List<User> users;
 
+    @Min(1)
+    private Integer capacity;
+
+    /**
+     * Summed over the seat rows of the session, which enrollments update instead of the session row.
+     */
+    @Formula("(select coalesce(sum(st.taken), 0) from SESSION_SEATS st where st.session_id = id)")
+    private int participantCount;
+
+    /**
+     * Revision of the session row plus those of its seat rows, so it moves on every change including
+     * enrollments; read for ETags only.
+     */
+    @Formula("(revision + (select coalesce(sum(st.revision), 0) from SESSION_SEATS st where st.session_id = id))")
+    private int revision;
+
     @CreatedDate
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -59,4 +77,10 @@ public class Session {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    /**
+     * Latest change of the session row or of its seat rows; read for Last-Modified dates only.
+     */
+    @Formula("(select greatest(coalesce(max(st.updated_at), updated_at), updated_at) from SESSION_SEATS st where st.session_id = id)")
+    private LocalDateTime lastModified;
 }
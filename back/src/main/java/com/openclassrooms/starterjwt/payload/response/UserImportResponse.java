@@ -0,0 +1,48 @@
+package com.openclassrooms.starterjwt.payload.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+public class UserImportResponse {
+  public enum Status {
+    CREATED, DUPLICATE, INVALID, FAILED
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static class RowResult {
+    private int line;
+    private String email;
+    private Status status;
+    private String message;
+  }
+
+  private int total;
+  private int created;
+  private int duplicates;
+  private int invalid;
+  private int failed;
+  private final List<RowResult> rows = new ArrayList<>();
+
+  public void add(RowResult row) {
+    rows.add(row);
+    total++;
+    switch (row.getStatus()) {
+      case CREATED:
+        created++;
+        break;
+      case DUPLICATE:
+        duplicates++;
+        break;
+      case FAILED:
+        failed++;
+        break;
+      default:
+        invalid++;
+    }
+  }
+}
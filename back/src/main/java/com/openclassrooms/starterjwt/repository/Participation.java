@@ -0,0 +1,10 @@
+package com.openclassrooms.starterjwt.repository;
+
+/**
+ * One row of the {@code PARTICIPATE} join table.
+ */
+public interface Participation {
+    Long getSessionId();
+
+    Long getUserId();
+}
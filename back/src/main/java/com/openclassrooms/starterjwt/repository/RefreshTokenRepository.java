@@ -0,0 +1,31 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.openclassrooms.starterjwt.models.RefreshToken;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+  @Query("select t from RefreshToken t join fetch t.user where t.tokenHash = :tokenHash")
+  Optional<RefreshToken> findByTokenHashWithUser(@Param("tokenHash") String tokenHash);
+
+  @Modifying
+  @Query("update RefreshToken t set t.tokenHash = :newHash, t.expiresAt = :expiresAt where t.id = :id and t.tokenHash = :oldHash")
+  int rotate(@Param("id") Long id, @Param("oldHash") String oldHash,
+      @Param("newHash") String newHash, @Param("expiresAt") LocalDateTime expiresAt);
+
+  @Modifying
+  @Query("delete from RefreshToken t where t.tokenHash = :tokenHash")
+  int deleteByTokenHash(@Param("tokenHash") String tokenHash);
+
+  @Modifying
+  @Query("delete from RefreshToken t where t.expiresAt < :now")
+  int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,10 @@
+package com.openclassrooms.starterjwt.repository;
+
+/**
+ * One of the seat rows of a session, with the participants counted on it.
+ */
+public interface SeatStripe {
+    Integer getStripe();
+
+    Integer getTaken();
+}
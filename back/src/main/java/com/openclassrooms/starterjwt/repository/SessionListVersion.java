@@ -0,0 +1,12 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.util.Date;
+
+/**
+ * Version of the session list, summed over the counter rows that every session write moves.
+ */
+public interface SessionListVersion {
+    Long getVersion();
+
+    Date getUpdatedAt();
+}
@@ -1,9 +1,178 @@
 package com.openclassrooms.starterjwt.repository;
 
 import com.openclassrooms.starterjwt.models.Session;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface SessionRepository  extends JpaRepository<Session, Long> {
+    String SUMMARY_COLUMNS = "select s.id as id, s.name as name, s.date as date, s.description as description, "
+            + "s.teacher.id as teacherId, s.capacity as capacity, s.participantCount as participantCount, s.revision as revision, s.createdAt as createdAt, s.updatedAt as updatedAt, "
+            + "s.lastModified as lastModified from Session s";
+
+    String DATE_RANGE = " where s.date >= :from and s.date < :to"
+            + " and (:hasFreeSeats = false or s.capacity is null or s.participantCount < s.capacity)";
+
+    String TEACHER_DATE_RANGE = DATE_RANGE + " and s.teacher.id = :teacherId";
+
+    String AFTER_POSITION = " and (s.date > :date or (s.date = :date and s.id > :id)) order by s.date asc, s.id asc";
+
+    @Query(value = SUMMARY_COLUMNS, countQuery = "select count(s) from Session s")
+    Page<SessionSummary> findSummaries(Pageable pageable);
+
+    /**
+     * Keyset window following the session at (date, id), in (date, id) order. Served from the
+     * (date, id) index without counting or skipping the preceding rows.
+     */
+    @Query(SUMMARY_COLUMNS + " where s.date > :date or (s.date = :date and s.id > :id) order by s.date asc, s.id asc")
+    Slice<SessionSummary> findSummariesAfter(@Param("date") Date date, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Sessions dated in [from, to), read as a range of the (date, id) index.
+     */
+    @Query(value = SUMMARY_COLUMNS + DATE_RANGE, countQuery = "select count(s) from Session s" + DATE_RANGE)
+    Page<SessionSummary> findSummariesBetween(@Param("from") Date from, @Param("to") Date to,
+                                              @Param("hasFreeSeats") boolean hasFreeSeats, Pageable pageable);
+
+    @Query(SUMMARY_COLUMNS + DATE_RANGE + AFTER_POSITION)
+    Slice<SessionSummary> findSummariesBetweenAfter(@Param("from") Date from, @Param("to") Date to,
+                                                    @Param("hasFreeSeats") boolean hasFreeSeats,
+                                                    @Param("date") Date date, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * One teacher's sessions dated in [from, to), read as a range of the (teacher_id, date) index, whose
+     * entries also carry the id and so come out in (date, id) order.
+     */
+    @Query(value = SUMMARY_COLUMNS + TEACHER_DATE_RANGE, countQuery = "select count(s) from Session s" + TEACHER_DATE_RANGE)
+    Page<SessionSummary> findTeacherSummariesBetween(@Param("teacherId") Long teacherId,
+                                                     @Param("from") Date from, @Param("to") Date to,
+                                                     @Param("hasFreeSeats") boolean hasFreeSeats, Pageable pageable);
+
+    @Query(SUMMARY_COLUMNS + TEACHER_DATE_RANGE + AFTER_POSITION)
+    Slice<SessionSummary> findTeacherSummariesBetweenAfter(@Param("teacherId") Long teacherId,
+                                                           @Param("from") Date from, @Param("to") Date to,
+                                                           @Param("hasFreeSeats") boolean hasFreeSeats,
+                                                           @Param("date") Date date, @Param("id") Long id,
+                                                           Pageable pageable);
+
+    @Query(SUMMARY_COLUMNS + " where s.id = :id")
+    Optional<SessionSummary> findSummaryById(@Param("id") Long id);
+
+    /**
+     * Reads the session list version from its few counter rows, without touching the sessions themselves.
+     */
+    @Query(value = "select coalesce(sum(v.version), 0) as version, max(v.updated_at) as updatedAt "
+            + "from SESSION_LIST_VERSION v", nativeQuery = true)
+    SessionListVersion findListVersion();
+
+    /**
+     * Moves the session list version on one of its counter rows, creating the row on first use. Writers pick
+     * the row at random, so concurrent writes do not all queue on the same one.
+     */
+    @Modifying
+    @Query(value = "insert into SESSION_LIST_VERSION (stripe, version) values (:stripe, 1) "
+            + "on duplicate key update version = version + 1", nativeQuery = true)
+    int bumpListVersion(@Param("stripe") int stripe);
+
+    /**
+     * Rewrites the editable columns of the session in one statement, leaving the seat rows to enrollments.
+     * Returns 0 when the session does not exist.
+     */
+    @Modifying
+    @Query(value = "update SESSIONS set name = :name, description = :description, date = :date, teacher_id = :teacherId, "
+            + "capacity = :capacity, revision = revision + 1, updated_at = current_timestamp "
+            + "where id = :sessionId", nativeQuery = true)
+    int updateDetails(@Param("sessionId") Long sessionId, @Param("name") String name,
+                      @Param("description") String description, @Param("date") Date date,
+                      @Param("teacherId") Long teacherId, @Param("capacity") Integer capacity);
+
+    /**
+     * Reads participant ids straight from the join table, for all the given sessions at once.
+     */
+    @Query(value = "select p.session_id as sessionId, p.user_id as userId from PARTICIPATE p where p.session_id in (:sessionIds)",
+            nativeQuery = true)
+    List<Participation> findParticipations(@Param("sessionIds") Collection<Long> sessionIds);
+
+    /**
+     * Records the user as a participant with a single insert, keyed by the (session_id, user_id) primary key.
+     * Returns 0 when the user is already enrolled or does not exist.
+     */
+    @Modifying
+    @Query(value = "insert ignore into PARTICIPATE (session_id, user_id) values (:sessionId, :userId)", nativeQuery = true)
+    int addParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    /**
+     * Returns 0 when the user was not enrolled in the session.
+     */
+    @Modifying
+    @Query(value = "delete from PARTICIPATE where session_id = :sessionId and user_id = :userId", nativeQuery = true)
+    int removeParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Query(value = "select count(*) from PARTICIPATE where session_id = :sessionId and user_id = :userId", nativeQuery = true)
+    int countParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    /**
+     * Adds one of the seat rows of a new session. The participants of a session are counted over several
+     * such rows, each holding a share of the capacity as its quota, so that concurrent enrollments into the
+     * same session lock different rows instead of all queueing on one.
+     */
+    @Modifying
+    @Query(value = "insert into SESSION_SEATS (session_id, stripe, taken, quota) values (:sessionId, :stripe, :taken, :quota)",
+            nativeQuery = true)
+    int addSeatStripe(@Param("sessionId") Long sessionId, @Param("stripe") int stripe,
+                      @Param("taken") int taken, @Param("quota") Integer quota);
+
+    /**
+     * Locks the seat rows of the session in stripe order, before its capacity is changed.
+     */
+    @Query(value = "select stripe as stripe, taken as taken from SESSION_SEATS where session_id = :sessionId "
+            + "order by stripe for update", nativeQuery = true)
+    List<SeatStripe> lockSeatStripes(@Param("sessionId") Long sessionId);
+
+    @Modifying
+    @Query(value = "update SESSION_SEATS set quota = :quota where session_id = :sessionId and stripe = :stripe", nativeQuery = true)
+    int setSeatQuota(@Param("sessionId") Long sessionId, @Param("stripe") int stripe, @Param("quota") Integer quota);
+
+    @Modifying
+    @Query(value = "delete from SESSION_SEATS where session_id = :sessionId", nativeQuery = true)
+    int deleteSeatStripes(@Param("sessionId") Long sessionId);
+
+    /**
+     * Takes a seat on the first seat row of [fromStripe, toStripe) under its quota, if nobody is waiting for
+     * the session. Returns 0 when none of these rows has a seat left.
+     */
+    @Modifying
+    @Query(value = "update SESSION_SEATS set taken = taken + 1, revision = revision + 1 "
+            + "where session_id = :sessionId and stripe >= :fromStripe and stripe < :toStripe "
+            + "and (quota is null or taken < quota) "
+            + "and not exists (select 1 from WAITLIST w where w.session_id = :sessionId) "
+            + "order by stripe limit 1", nativeQuery = true)
+    int takeSeat(@Param("sessionId") Long sessionId, @Param("fromStripe") int fromStripe, @Param("toStripe") int toStripe);
+
+    /**
+     * Takes a seat on the first seat row of [fromStripe, toStripe) under its quota, for the head of the waitlist.
+     */
+    @Modifying
+    @Query(value = "update SESSION_SEATS set taken = taken + 1, revision = revision + 1 "
+            + "where session_id = :sessionId and stripe >= :fromStripe and stripe < :toStripe "
+            + "and (quota is null or taken < quota) "
+            + "order by stripe limit 1", nativeQuery = true)
+    int takeWaitlistedSeat(@Param("sessionId") Long sessionId, @Param("fromStripe") int fromStripe, @Param("toStripe") int toStripe);
+
+    @Modifying
+    @Query(value = "update SESSION_SEATS set taken = taken - 1, revision = revision + 1 "
+            + "where session_id = :sessionId and stripe >= :fromStripe and stripe < :toStripe and taken > 0 "
+            + "order by stripe limit 1", nativeQuery = true)
+    int releaseSeat(@Param("sessionId") Long sessionId, @Param("fromStripe") int fromStripe, @Param("toStripe") int toStripe);
 }
@@ -0,0 +1,10 @@
+package com.openclassrooms.starterjwt.repository;
+
+/**
+ * Email and password hash of one {@code USERS} row.
+ */
+public interface StoredPassword {
+    String getEmail();
+
+    String getPassword();
+}
@@ -1,8 +1,14 @@
 package com.openclassrooms.starterjwt.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.openclassrooms.starterjwt.models.User;
@@ -12,4 +18,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
   Optional<User> findByEmail(String email);
 
   Boolean existsByEmail(String email); 
+
+  @Query("select u.email from User u where u.email in :emails")
+  Set<String> findEmailsIn(@Param("emails") Collection<String> emails);
+
+  @Query("select u.email as email, u.password as password from User u where u.email in :emails")
+  List<StoredPassword> findPasswordsByEmailIn(@Param("emails") Collection<String> emails);
+
+  @Modifying
+  @Query("update User u set u.password = :password where u.email = :email")
+  int updatePasswordByEmail(@Param("email") String email, @Param("password") String password);
 }
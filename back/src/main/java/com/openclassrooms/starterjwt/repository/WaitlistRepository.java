@@ -0,0 +1,46 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    /**
+     * Puts the user at the end of the waitlist. Returns 0 when the user is already waiting for that session.
+     */
+    @Modifying
+    @Query(value = "insert ignore into WAITLIST (session_id, user_id) values (:sessionId, :userId)", nativeQuery = true)
+    int enqueue(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    /**
+     * Returns 0 when the user was not waiting for the session.
+     */
+    @Modifying
+    @Query(value = "delete from WAITLIST where session_id = :sessionId and user_id = :userId", nativeQuery = true)
+    int dequeue(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    /**
+     * First entries of the waitlist of a session, read from the (session_id, position) index.
+     */
+    @Query("select w from WaitlistEntry w where w.sessionId = :sessionId order by w.position asc")
+    List<WaitlistEntry> findHead(@Param("sessionId") Long sessionId, Pageable pageable);
+
+    @Modifying
+    @Query(value = "delete from WAITLIST where position = :position", nativeQuery = true)
+    int deleteByPosition(@Param("position") Long position);
+
+    /**
+     * Sessions with people waiting while seats are free, e.g. when a promotion was interrupted.
+     */
+    @Query("select distinct w.sessionId from WaitlistEntry w, Session s "
+            + "where s.id = w.sessionId and (s.capacity is null or s.participantCount < s.capacity)")
+    List<Long> findPromotableSessionIds();
+}
@@ -0,0 +1,110 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counts authentication failures per reason in {@code auth.failures} and logs at most one sample per reason
+ * and interval, with the number of failures left out since the previous sample. Rejections are cheap to produce
+ * in bulk, so logging each one would turn a credential-stuffing burst into a logging one.
+ */
+@Component
+public class AuthFailureRecorder {
+  public static final String UNAUTHORIZED = "unauthorized";
+
+  private static final Logger logger = LoggerFactory.getLogger(AuthFailureRecorder.class);
+
+  private final MeterRegistry meterRegistry;
+
+  private final long logIntervalNanos;
+
+  private final Map<String, Reason> reasons = new ConcurrentHashMap<>();
+
+  public AuthFailureRecorder(MeterRegistry meterRegistry,
+      @Value("${oc.app.authFailureLogIntervalMs}") long logIntervalMs) {
+    this.meterRegistry = meterRegistry;
+    this.logIntervalNanos = TimeUnit.MILLISECONDS.toNanos(logIntervalMs);
+    for (JwtVerification.Failure failure : JwtVerification.Failure.values()) {
+      reason(name(failure));
+    }
+    reason(UNAUTHORIZED);
+  }
+
+  public void record(JwtVerification.Failure failure, String detail) {
+    record(name(failure), detail);
+  }
+
+  public void record(String reason, String detail) {
+    Reason counters = reason(reason);
+    counters.counter.increment();
+
+    long suppressed = counters.sampler.acquire(System.nanoTime());
+    if (suppressed >= 0) {
+      logger.warn("Authentication failure ({}): {} [{} similar failures not logged]", reason, detail, suppressed);
+    }
+  }
+
+  public double count(String reason) {
+    return reason(reason).counter.count();
+  }
+
+  static String name(JwtVerification.Failure failure) {
+    return failure.name().toLowerCase(Locale.ROOT);
+  }
+
+  private Reason reason(String reason) {
+    return reasons.computeIfAbsent(reason, key -> new Reason(
+        Counter.builder("auth.failures").tag("reason", key).register(meterRegistry),
+        new Sampler(logIntervalNanos)));
+  }
+
+  private static final class Reason {
+    private final Counter counter;
+
+    private final Sampler sampler;
+
+    private Reason(Counter counter, Sampler sampler) {
+      this.counter = counter;
+      this.sampler = sampler;
+    }
+  }
+
+  /**
+   * Lets one caller through per interval without locking.
+   */
+  static final class Sampler {
+    private final long intervalNanos;
+
+    private final AtomicLong nextAllowedNanos;
+
+    private final AtomicLong suppressed = new AtomicLong();
+
+    Sampler(long intervalNanos) {
+      this.intervalNanos = intervalNanos;
+      this.nextAllowedNanos = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Returns the number of calls suppressed since the last permit, or -1 if this call is suppressed too.
+     */
+    long acquire(long nowNanos) {
+      long next = nextAllowedNanos.get();
+      if (nowNanos - next >= 0 && nextAllowedNanos.compareAndSet(next, nowNanos + intervalNanos)) {
+        return suppressed.getAndSet(0);
+      }
+      suppressed.incrementAndGet();
+      return -1;
+    }
+  }
+}
@@ -1,6 +1,8 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
 import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -10,6 +12,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -17,6 +20,7 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 
 public class AuthTokenFilter extends OncePerRequestFilter {
@@ -26,17 +30,32 @@ public class AuthTokenFilter extends OncePerRequestFilter {
   @Autowired
   private UserDetailsServiceImpl userDetailsService;
 
+  @Autowired
+  private VerifiedTokenCache verifiedTokenCache;
+
+  @Autowired
+  private TokenRevocationStore tokenRevocationStore;
+
+  @Autowired
+  private AuthFailureRecorder authFailureRecorder;
+
+  @Value("${oc.app.jwtFreshnessMinutes}")
+  private long jwtFreshnessMinutes;
+
   private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return request.getServletPath().startsWith("/api/auth/");
+  }
+
   @Override
   protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
       throws ServletException, IOException {
     try {
       String jwt = parseJwt(request);
-      if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-        String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+      UserDetails userDetails = jwt != null ? authenticate(jwt) : null;
+      if (userDetails != null) {
         UsernamePasswordAuthenticationToken authentication =
             new UsernamePasswordAuthenticationToken(
                 userDetails,
@@ -53,9 +72,51 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     filterChain.doFilter(request, response);
   }
 
+  private UserDetails authenticate(String jwt) {
+    UserDetails userDetails = verifiedTokenCache.get(jwt);
+    if (userDetails != null) {
+      return userDetails;
+    }
+
+    JwtVerification verification = jwtUtils.verify(jwt);
+    if (!verification.isValid()) {
+      authFailureRecorder.record(verification.getFailure(), verification.getMessage());
+      return null;
+    }
+
+    JwtClaims claims = verification.getClaims();
+    userDetails = isFresh(claims) ? jwtUtils.getUserDetailsFromClaims(claims) : null;
+    if (userDetails == null) {
+      userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+    }
+
+    Long userId = userDetails instanceof UserDetailsImpl ? ((UserDetailsImpl) userDetails).getId() : null;
+    if (tokenRevocationStore.isRevoked(claims, userId)) {
+      return null;
+    }
+    verifiedTokenCache.put(jwt, userDetails, claims.getExpiration());
+    // A revocation landing between the check and the put would otherwise leave the token cached.
+    if (tokenRevocationStore.isRevoked(claims, userId)) {
+      verifiedTokenCache.invalidate(jwt);
+      return null;
+    }
+    return userDetails;
+  }
+
+  /**
+   * Tokens issued within the freshness window are trusted as-is; older ones are checked against the database.
+   */
+  private boolean isFresh(JwtClaims claims) {
+    Date issuedAt = claims.getIssuedAt();
+    return issuedAt != null
+        && System.currentTimeMillis() - issuedAt.getTime() < TimeUnit.MINUTES.toMillis(jwtFreshnessMinutes);
+  }
+
   private String parseJwt(HttpServletRequest request) {
-    String headerAuth = request.getHeader("Authorization");
+    return parseJwt(request.getHeader("Authorization"));
+  }
 
+  public static String parseJwt(String headerAuth) {
     if (StringUtils.hasText(headerAuth) && headerAuth.startsWith("Bearer ")) {
       return headerAuth.substring(7, headerAuth.length());
     }
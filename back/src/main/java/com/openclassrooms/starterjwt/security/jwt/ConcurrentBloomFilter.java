@@ -0,0 +1,70 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over strings. Bits are set with CAS on an {@link AtomicLongArray}, so readers and
+ * writers never block each other. A negative answer is exact; a positive one must be confirmed elsewhere.
+ */
+final class ConcurrentBloomFilter {
+  private final AtomicLongArray words;
+
+  private final int mask;
+
+  private final int hashes;
+
+  ConcurrentBloomFilter(int bits, int hashes) {
+    int size = Integer.highestOneBit(Math.max(64, bits - 1)) << 1;
+    this.words = new AtomicLongArray(size >>> 6);
+    this.mask = size - 1;
+    this.hashes = hashes;
+  }
+
+  void put(String key) {
+    long hash = hash(key);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 0; i < hashes; i++) {
+      int bit = (h1 + i * h2) & mask;
+      long bitMask = 1L << bit;
+      int index = bit >>> 6;
+      long word;
+      do {
+        word = words.get(index);
+        if ((word & bitMask) != 0) {
+          break;
+        }
+      } while (!words.compareAndSet(index, word, word | bitMask));
+    }
+  }
+
+  boolean mightContain(String key) {
+    long hash = hash(key);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 0; i < hashes; i++) {
+      int bit = (h1 + i * h2) & mask;
+      if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * 64-bit FNV-1a followed by a MurmurHash3 finalizer, so both 32-bit halves are well mixed for double hashing.
+   */
+  private static long hash(String key) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < key.length(); i++) {
+      hash ^= key.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
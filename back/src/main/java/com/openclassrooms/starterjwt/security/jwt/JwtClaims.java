@@ -0,0 +1,60 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.jsonwebtoken.Claims;
+import lombok.Getter;
+
+/**
+ * Immutable view of the claims carried by a verified JWT.
+ * Registered claims are exposed as typed getters, everything else through {@link #getCustomClaims()}.
+ */
+@Getter
+public final class JwtClaims {
+  private final String subject;
+
+  private final String id;
+
+  private final Date expiration;
+
+  private final Date issuedAt;
+
+  private final Map<String, Object> customClaims;
+
+  public JwtClaims(String subject, Date expiration, Date issuedAt, Map<String, Object> customClaims) {
+    this(subject, null, expiration, issuedAt, customClaims);
+  }
+
+  public JwtClaims(String subject, String id, Date expiration, Date issuedAt, Map<String, Object> customClaims) {
+    this.subject = subject;
+    this.id = id;
+    this.expiration = expiration != null ? new Date(expiration.getTime()) : null;
+    this.issuedAt = issuedAt != null ? new Date(issuedAt.getTime()) : null;
+    this.customClaims = Collections.unmodifiableMap(new HashMap<>(customClaims));
+  }
+
+  static JwtClaims from(Claims claims) {
+    Map<String, Object> customClaims = new HashMap<>(claims);
+    customClaims.remove(Claims.SUBJECT);
+    customClaims.remove(Claims.ID);
+    customClaims.remove(Claims.EXPIRATION);
+    customClaims.remove(Claims.ISSUED_AT);
+
+    return new JwtClaims(claims.getSubject(), claims.getId(), claims.getExpiration(), claims.getIssuedAt(), customClaims);
+  }
+
+  public Date getExpiration() {
+    return expiration != null ? new Date(expiration.getTime()) : null;
+  }
+
+  public Date getIssuedAt() {
+    return issuedAt != null ? new Date(issuedAt.getTime()) : null;
+  }
+
+  public Object getCustomClaim(String name) {
+    return customClaims.get(name);
+  }
+}
@@ -0,0 +1,163 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.security.Key;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.impl.DefaultJwtParser;
+import io.jsonwebtoken.impl.crypto.JwtSignatureValidator;
+
+/**
+ * Immutable set of {@link JwtSigningKey}s indexed by key id. Tokens are signed with the active key and
+ * verified with the key named by their {@code kid} header, found with a single map lookup; tokens without
+ * a {@code kid} were signed with {@code oc.app.jwtSecret}, which stays in the ring as {@link #DEFAULT_KID}.
+ * <p>
+ * A ring file is a properties file naming the active key and listing every key still trusted:
+ * <pre>
+ * active=2024-06
+ * key.2024-06=base64 secret
+ * key.2024-01=base64 secret
+ * </pre>
+ * Keys dropped from the file are retired rather than forgotten: they keep verifying tokens until the
+ * longest-lived token they could have signed has expired.
+ */
+final class JwtKeyRing {
+  static final String DEFAULT_KID = "default";
+
+  static final String ACTIVE_PROPERTY = "active";
+
+  static final String KEY_PROPERTY_PREFIX = "key.";
+
+  private final JwtSigningKey active;
+
+  private final Map<String, JwtSigningKey> keys;
+
+  private final Map<String, Long> retiredUntil;
+
+  private JwtKeyRing(JwtSigningKey active, Map<String, JwtSigningKey> keys, Map<String, Long> retiredUntil) {
+    this.active = active;
+    this.keys = Collections.unmodifiableMap(keys);
+    this.retiredUntil = Collections.unmodifiableMap(retiredUntil);
+  }
+
+  /**
+   * Ring holding only the configured secret, used for signing as well.
+   */
+  static JwtKeyRing of(String secret) {
+    JwtSigningKey key = new JwtSigningKey(DEFAULT_KID, secret);
+    return new JwtKeyRing(key, Collections.singletonMap(DEFAULT_KID, key), Collections.emptyMap());
+  }
+
+  /**
+   * Builds the ring described by a ring file. Keys whose secret did not change are carried over with their
+   * prepared {@code Mac}s; keys missing from the file stay trusted for {@code retentionMs}.
+   *
+   * @throws IllegalArgumentException when the file names no active key or an active key it does not list
+   */
+  JwtKeyRing reload(Properties file, long nowMillis, long retentionMs) {
+    String activeKid = file.getProperty(ACTIVE_PROPERTY, "").trim();
+    if (activeKid.isEmpty()) {
+      throw new IllegalArgumentException("Key ring file does not name an active key.");
+    }
+
+    Map<String, JwtSigningKey> nextKeys = new HashMap<>();
+    nextKeys.put(DEFAULT_KID, keys.get(DEFAULT_KID));
+    for (String name : file.stringPropertyNames()) {
+      if (!name.startsWith(KEY_PROPERTY_PREFIX)) {
+        continue;
+      }
+      String kid = name.substring(KEY_PROPERTY_PREFIX.length()).trim();
+      String keySecret = file.getProperty(name).trim();
+      if (kid.isEmpty() || DEFAULT_KID.equals(kid)) {
+        throw new IllegalArgumentException("Invalid key id in key ring file: '" + kid + "'.");
+      }
+      JwtSigningKey current = keys.get(kid);
+      nextKeys.put(kid, current != null && current.hasSecret(keySecret) ? current : new JwtSigningKey(kid, keySecret));
+    }
+
+    JwtSigningKey nextActive = nextKeys.get(activeKid);
+    if (nextActive == null) {
+      throw new IllegalArgumentException("Active key '" + activeKid + "' is not listed in the key ring file.");
+    }
+
+    Map<String, Long> nextRetired = new HashMap<>();
+    for (Map.Entry<String, JwtSigningKey> entry : keys.entrySet()) {
+      String kid = entry.getKey();
+      if (nextKeys.containsKey(kid)) {
+        continue;
+      }
+      long until = retiredUntil.getOrDefault(kid, nowMillis + retentionMs);
+      if (until > nowMillis) {
+        nextKeys.put(kid, entry.getValue());
+        nextRetired.put(kid, until);
+      }
+    }
+    return new JwtKeyRing(nextActive, nextKeys, nextRetired);
+  }
+
+  /**
+   * Drops retired keys whose tokens have all expired. Returns this ring when there is nothing to drop.
+   */
+  JwtKeyRing purgeRetired(long nowMillis) {
+    if (retiredUntil.values().stream().noneMatch(until -> until <= nowMillis)) {
+      return this;
+    }
+    Map<String, JwtSigningKey> nextKeys = new HashMap<>(keys);
+    Map<String, Long> nextRetired = new HashMap<>(retiredUntil);
+    retiredUntil.forEach((kid, until) -> {
+      if (until <= nowMillis) {
+        nextKeys.remove(kid);
+        nextRetired.remove(kid);
+      }
+    });
+    return new JwtKeyRing(active, nextKeys, nextRetired);
+  }
+
+  String getActiveKid() {
+    return active.getKid();
+  }
+
+  boolean contains(String kid) {
+    return keys.containsKey(kid);
+  }
+
+  JwtBuilder builder() {
+    return active.builder();
+  }
+
+  JwtParser parser() {
+    return new DefaultJwtParser() {
+      @Override
+      protected JwtSignatureValidator createSignatureValidator(SignatureAlgorithm alg, Key key) {
+        return JwtSigningKey.owning(key).createSignatureValidator(alg);
+      }
+    }.setSigningKeyResolver(new SigningKeyResolverAdapter() {
+      @Override
+      public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        return resolve(header.getKeyId());
+      }
+
+      @Override
+      public Key resolveSigningKey(JwsHeader header, String plaintext) {
+        return resolve(header.getKeyId());
+      }
+    });
+  }
+
+  private Key resolve(String kid) {
+    JwtSigningKey key = keys.get(kid != null ? kid : DEFAULT_KID);
+    if (key == null) {
+      throw new SignatureException("JWT signed with unknown key '" + kid + "'.");
+    }
+    return key.getKey();
+  }
+}
@@ -0,0 +1,117 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.MessageDigest;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.impl.DefaultJwtBuilder;
+import io.jsonwebtoken.impl.TextCodec;
+import io.jsonwebtoken.impl.crypto.JwtSignatureValidator;
+import io.jsonwebtoken.impl.crypto.JwtSigner;
+
+/**
+ * HS512 key derived once from the base64 secret, the same way jjwt derives it from a string secret, with one
+ * initialized {@link Mac} per thread. jjwt 0.9.1 otherwise decodes the secret and runs {@code Mac.getInstance}
+ * and {@code Mac.init} for every token signed or parsed. A key with an id stamps it as the {@code kid} header of the
+ * tokens it signs, so a {@link JwtKeyRing} can pick the verifying key without trying each one.
+ */
+final class JwtSigningKey {
+  static final SignatureAlgorithm ALGORITHM = SignatureAlgorithm.HS512;
+
+  private final String kid;
+
+  private final String secret;
+
+  private final BoundKey key;
+
+  private final ThreadLocal<Mac> macs;
+
+  JwtSigningKey(String kid, String secret) {
+    if (secret == null || secret.isEmpty()) {
+      throw new IllegalArgumentException("signing key cannot be null or empty.");
+    }
+    this.kid = kid;
+    this.secret = secret;
+    this.key = new BoundKey(TextCodec.BASE64.decode(secret), this);
+    this.macs = ThreadLocal.withInitial(this::newMac);
+  }
+
+  /**
+   * True when this key was derived from an equal secret, so it can be kept across key ring reloads.
+   */
+  boolean hasSecret(String secret) {
+    return this.secret.equals(secret);
+  }
+
+  String getKid() {
+    return kid;
+  }
+
+  Key getKey() {
+    return key;
+  }
+
+  /**
+   * Returns the signing key the given key was handed out by, or null for any other key.
+   */
+  static JwtSigningKey owning(Key key) {
+    return key instanceof BoundKey ? ((BoundKey) key).owner : null;
+  }
+
+  JwtBuilder builder() {
+    JwtBuilder builder = new DefaultJwtBuilder() {
+      @Override
+      protected JwtSigner createSigner(SignatureAlgorithm alg, Key key) {
+        return jwtWithoutSignature -> TextCodec.BASE64URL.encode(sign(jwtWithoutSignature));
+      }
+    }.signWith(ALGORITHM, key);
+    return kid != null ? builder.setHeaderParam(JwsHeader.KEY_ID, kid) : builder;
+  }
+
+  JwtSignatureValidator createSignatureValidator(SignatureAlgorithm alg) {
+    if (alg != ALGORITHM) {
+      throw new SignatureException("JWT signed with " + alg.getValue() + " but " + ALGORITHM.getValue() + " is expected.");
+    }
+    return this::isValid;
+  }
+
+  private boolean isValid(String jwtWithoutSignature, String base64UrlEncodedSignature) {
+    return MessageDigest.isEqual(sign(jwtWithoutSignature), TextCodec.BASE64URL.decode(base64UrlEncodedSignature));
+  }
+
+  private byte[] sign(String jwtWithoutSignature) {
+    return macs.get().doFinal(jwtWithoutSignature.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  private Mac newMac() {
+    try {
+      Mac mac = Mac.getInstance(key.getAlgorithm());
+      mac.init(key);
+      return mac;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Unable to initialize " + key.getAlgorithm(), e);
+    }
+  }
+
+  /**
+   * Key handed to jjwt, pointing back to the prepared {@link Mac}s of the signing key it belongs to.
+   */
+  private static final class BoundKey extends SecretKeySpec {
+    private static final long serialVersionUID = 1L;
+
+    private final transient JwtSigningKey owner;
+
+    BoundKey(byte[] key, JwtSigningKey owner) {
+      super(key, ALGORITHM.getJcaName());
+      this.owner = owner;
+    }
+  }
+}
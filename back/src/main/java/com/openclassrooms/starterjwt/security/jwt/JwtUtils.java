@@ -1,10 +1,21 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Date;
+import java.util.Properties;
+import java.util.UUID;
+
+import javax.annotation.PostConstruct;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
@@ -16,44 +27,120 @@ import io.jsonwebtoken.*;
 public class JwtUtils {
   private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+  static final String CLAIM_ID = "id";
+  static final String CLAIM_FIRST_NAME = "firstName";
+  static final String CLAIM_LAST_NAME = "lastName";
+  static final String CLAIM_ADMIN = "admin";
+
   @Value("${oc.app.jwtSecret}")
   private String jwtSecret;
 
   @Value("${oc.app.jwtExpirationMs}")
   private int jwtExpirationMs;
 
-  public String generateJwtToken(Authentication authentication) {
+  @Value("${oc.app.jwtKeyRingFile}")
+  private String jwtKeyRingFile;
 
-    UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
+  private volatile JwtKeyRing keyRing;
 
-    return Jwts.builder()
+  private volatile long keyRingFileModified = -1;
+
+  /**
+   * Derives the key ring from {@code oc.app.jwtSecret} on the first call, then picks up changes to the key ring
+   * file, if one is configured, and drops retired keys whose tokens have expired. A file that cannot be read or
+   * is invalid leaves the current keys in place. This is the only place the ring is built.
+   */
+  @PostConstruct
+  @Scheduled(fixedDelayString = "${oc.app.jwtKeyRingReloadIntervalMs}")
+  public void reloadKeyRing() {
+    JwtKeyRing current = keyRing;
+    JwtKeyRing ring = current != null ? current : JwtKeyRing.of(jwtSecret);
+    long now = System.currentTimeMillis();
+    if (jwtKeyRingFile != null && !jwtKeyRingFile.isEmpty()) {
+      Path path = Paths.get(jwtKeyRingFile);
+      try {
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        if (modified != keyRingFileModified) {
+          Properties file = new Properties();
+          try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            file.load(reader);
+          }
+          ring = ring.reload(file, now, jwtExpirationMs);
+          keyRingFileModified = modified;
+          logger.info("Loaded JWT key ring from {}, signing with key '{}'", path, ring.getActiveKid());
+        }
+      } catch (IOException | IllegalArgumentException e) {
+        logger.error("Cannot load JWT key ring from {}, keeping the current keys: {}", path, e.getMessage());
+      }
+    }
+    keyRing = ring.purgeRetired(now);
+  }
+
+  public String generateJwtToken(Authentication authentication) {
+    return generateJwtToken((UserDetailsImpl) authentication.getPrincipal());
+  }
+
+  public String generateJwtToken(UserDetailsImpl userPrincipal) {
+    return keyRing.builder()
         .setSubject((userPrincipal.getUsername()))
+        .setId(UUID.randomUUID().toString())
+        .claim(CLAIM_ID, userPrincipal.getId())
+        .claim(CLAIM_FIRST_NAME, userPrincipal.getFirstName())
+        .claim(CLAIM_LAST_NAME, userPrincipal.getLastName())
+        .claim(CLAIM_ADMIN, userPrincipal.getAdmin())
         .setIssuedAt(new Date())
         .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-        .signWith(SignatureAlgorithm.HS512, jwtSecret)
         .compact();
   }
 
   public String getUserNameFromJwtToken(String token) {
-    return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody().getSubject();
+    return keyRing.parser().parseClaimsJws(token).getBody().getSubject();
+  }
+
+  /**
+   * Rebuilds the principal embedded in the token by {@link #generateJwtToken(Authentication)}.
+   * Returns null for tokens issued without the principal claims.
+   */
+  public UserDetailsImpl getUserDetailsFromClaims(JwtClaims claims) {
+    Object id = claims.getCustomClaim(CLAIM_ID);
+    Object admin = claims.getCustomClaim(CLAIM_ADMIN);
+    if (!(id instanceof Number) || !(admin instanceof Boolean)) {
+      return null;
+    }
+
+    return UserDetailsImpl
+        .builder()
+        .id(((Number) id).longValue())
+        .username(claims.getSubject())
+        .firstName((String) claims.getCustomClaim(CLAIM_FIRST_NAME))
+        .lastName((String) claims.getCustomClaim(CLAIM_LAST_NAME))
+        .admin((Boolean) admin)
+        .build();
   }
 
   public boolean validateJwtToken(String authToken) {
+    return verify(authToken).isValid();
+  }
+
+  /**
+   * Decodes, verifies and parses the token once, so callers needing both the validity and the claims
+   * do not pay for the HMAC check and JSON parsing twice. Failures are returned rather than logged;
+   * callers report them through {@link AuthFailureRecorder}.
+   */
+  public JwtVerification verify(String authToken) {
     try {
-      Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-      return true;
+      Claims claims = keyRing.parser().parseClaimsJws(authToken).getBody();
+      return JwtVerification.valid(JwtClaims.from(claims));
     } catch (SignatureException e) {
-      logger.error("Invalid JWT signature: {}", e.getMessage());
+      return JwtVerification.failed(JwtVerification.Failure.BAD_SIGNATURE, e.getMessage());
     } catch (MalformedJwtException e) {
-      logger.error("Invalid JWT token: {}", e.getMessage());
+      return JwtVerification.failed(JwtVerification.Failure.MALFORMED, e.getMessage());
     } catch (ExpiredJwtException e) {
-      logger.error("JWT token is expired: {}", e.getMessage());
+      return JwtVerification.failed(JwtVerification.Failure.EXPIRED, e.getMessage());
     } catch (UnsupportedJwtException e) {
-      logger.error("JWT token is unsupported: {}", e.getMessage());
+      return JwtVerification.failed(JwtVerification.Failure.UNSUPPORTED, e.getMessage());
     } catch (IllegalArgumentException e) {
-      logger.error("JWT claims string is empty: {}", e.getMessage());
+      return JwtVerification.failed(JwtVerification.Failure.EMPTY, e.getMessage());
     }
-
-    return false;
   }
 }
@@ -0,0 +1,45 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import lombok.Getter;
+
+/**
+ * Outcome of a single-pass JWT verification: either the parsed claims or the reason the token was rejected.
+ */
+@Getter
+public final class JwtVerification {
+  public enum Failure {
+    BAD_SIGNATURE,
+    MALFORMED,
+    EXPIRED,
+    UNSUPPORTED,
+    EMPTY
+  }
+
+  private final JwtClaims claims;
+
+  private final Failure failure;
+
+  private final String message;
+
+  private JwtVerification(JwtClaims claims, Failure failure, String message) {
+    this.claims = claims;
+    this.failure = failure;
+    this.message = message;
+  }
+
+  public static JwtVerification valid(JwtClaims claims) {
+    return new JwtVerification(claims, null, null);
+  }
+
+  public static JwtVerification failed(Failure failure) {
+    return failed(failure, null);
+  }
+
+  public static JwtVerification failed(Failure failure, String message) {
+    return new JwtVerification(null, failure, message);
+  }
+
+  public boolean isValid() {
+    return claims != null;
+  }
+}
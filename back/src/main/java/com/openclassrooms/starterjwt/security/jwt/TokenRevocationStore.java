@@ -0,0 +1,129 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In-memory denylist of revoked token ids ({@code jti}) and of users whose tokens were all revoked.
+ * Every entry lives until the tokens it covers would have expired anyway. The per-request check reads a
+ * {@link ConcurrentBloomFilter} and only consults the exact map on a positive, so unrevoked tokens are
+ * answered without locking or allocation beyond the lookup key. Writers share a read lock that
+ * {@link #purgeExpired()} takes exclusively while it rebuilds the filter, so no insert is lost across a swap.
+ */
+@Component
+public class TokenRevocationStore {
+  private static final String TOKEN_PREFIX = "jti:";
+  private static final String USER_PREFIX = "uid:";
+
+  private final Map<String, Revocation> revocations = new ConcurrentHashMap<>();
+
+  private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+  private final int bloomBits;
+
+  private final int bloomHashes;
+
+  private final long jwtExpirationMs;
+
+  private volatile ConcurrentBloomFilter filter;
+
+  public TokenRevocationStore(@Value("${oc.app.revocationBloomBits}") int bloomBits,
+      @Value("${oc.app.revocationBloomHashes}") int bloomHashes,
+      @Value("${oc.app.jwtExpirationMs}") long jwtExpirationMs,
+      MeterRegistry meterRegistry) {
+    this.bloomBits = bloomBits;
+    this.bloomHashes = bloomHashes;
+    this.jwtExpirationMs = jwtExpirationMs;
+    this.filter = new ConcurrentBloomFilter(bloomBits, bloomHashes);
+    meterRegistry.gaugeMapSize("jwt.revocations", Collections.emptyList(), revocations);
+  }
+
+  /**
+   * Revokes a single token until its expiration.
+   */
+  public void revokeToken(String tokenId, Date expiration) {
+    long expiresAt = expiration != null ? expiration.getTime() : System.currentTimeMillis() + jwtExpirationMs;
+    add(TOKEN_PREFIX + tokenId, new Revocation(System.currentTimeMillis(), expiresAt));
+  }
+
+  /**
+   * Revokes every token issued to the user so far, for as long as such a token can still be valid.
+   */
+  public void revokeUser(Long userId) {
+    long now = System.currentTimeMillis();
+    add(USER_PREFIX + userId, new Revocation(now, now + jwtExpirationMs));
+  }
+
+  public boolean isRevoked(JwtClaims claims, Long userId) {
+    ConcurrentBloomFilter current = filter;
+
+    String tokenId = claims.getId();
+    if (tokenId != null && current.mightContain(TOKEN_PREFIX + tokenId)
+        && revocations.containsKey(TOKEN_PREFIX + tokenId)) {
+      return true;
+    }
+
+    if (userId != null && current.mightContain(USER_PREFIX + userId)) {
+      Revocation revocation = revocations.get(USER_PREFIX + userId);
+      Date issuedAt = claims.getIssuedAt();
+      return revocation != null && (issuedAt == null || issuedAt.getTime() <= revocation.revokedAtMillis);
+    }
+    return false;
+  }
+
+  /**
+   * Drops expired revocations and rebuilds the filter from the remaining ones, so false positives do not
+   * accumulate over time. The old filter stays published until the new one holds every live key.
+   */
+  @Scheduled(fixedDelayString = "${oc.app.revocationPurgeIntervalMs}")
+  public void purgeExpired() {
+    long now = System.currentTimeMillis();
+    if (!revocations.values().removeIf(revocation -> revocation.expiresAtMillis <= now)) {
+      return;
+    }
+
+    swapLock.writeLock().lock();
+    try {
+      ConcurrentBloomFilter rebuilt = new ConcurrentBloomFilter(bloomBits, bloomHashes);
+      revocations.keySet().forEach(rebuilt::put);
+      filter = rebuilt;
+    } finally {
+      swapLock.writeLock().unlock();
+    }
+  }
+
+  public int size() {
+    return revocations.size();
+  }
+
+  private void add(String key, Revocation revocation) {
+    swapLock.readLock().lock();
+    try {
+      revocations.merge(key, revocation, (previous, next) -> next.expiresAtMillis > previous.expiresAtMillis ? next : previous);
+      filter.put(key);
+    } finally {
+      swapLock.readLock().unlock();
+    }
+  }
+
+  private static final class Revocation {
+    private final long revokedAtMillis;
+
+    private final long expiresAtMillis;
+
+    private Revocation(long revokedAtMillis, long expiresAtMillis) {
+      this.revokedAtMillis = revokedAtMillis;
+      this.expiresAtMillis = expiresAtMillis;
+    }
+  }
+}
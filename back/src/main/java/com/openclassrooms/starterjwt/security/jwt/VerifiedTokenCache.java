@@ -0,0 +1,119 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded cache of already verified bearer tokens, keyed by a SHA-256 digest of the raw token so the token
+ * itself is never kept in memory. An entry lives until the token expires, capped by {@code oc.app.tokenCacheMaxTtlMs}.
+ */
+@Component
+public class VerifiedTokenCache {
+  private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  });
+
+  private final Cache<String, Entry> cache;
+
+  public VerifiedTokenCache(@Value("${oc.app.tokenCacheMaxSize}") long maxSize,
+      @Value("${oc.app.tokenCacheMaxTtlMs}") long maxTtlMs,
+      MeterRegistry meterRegistry) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfter(new TokenExpiry(TimeUnit.MILLISECONDS.toNanos(maxTtlMs)))
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.verifiedTokens");
+  }
+
+  public UserDetails get(String token) {
+    Entry entry = cache.getIfPresent(digest(token));
+    return entry != null ? entry.principal : null;
+  }
+
+  public void put(String token, UserDetails principal, Date expiration) {
+    if (expiration == null) {
+      return;
+    }
+    cache.put(digest(token), new Entry(principal, expiration.getTime()));
+  }
+
+  public void invalidate(String token) {
+    cache.invalidate(digest(token));
+  }
+
+  /**
+   * Drops every cached token of the given user. This walks the whole cache, which is fine for the rare
+   * account deletion but must stay off the per-request path.
+   */
+  public void invalidateUser(Long userId) {
+    cache.asMap().values().removeIf(entry -> entry.principal instanceof UserDetailsImpl
+        && Objects.equals(((UserDetailsImpl) entry.principal).getId(), userId));
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  private static String digest(String token) {
+    byte[] hash = SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+    return Base64.getEncoder().encodeToString(hash);
+  }
+
+  private static final class Entry {
+    private final UserDetails principal;
+
+    private final long expiresAtMillis;
+
+    private Entry(UserDetails principal, long expiresAtMillis) {
+      this.principal = principal;
+      this.expiresAtMillis = expiresAtMillis;
+    }
+  }
+
+  private static final class TokenExpiry implements Expiry<String, Entry> {
+    private final long maxTtlNanos;
+
+    private TokenExpiry(long maxTtlNanos) {
+      this.maxTtlNanos = maxTtlNanos;
+    }
+
+    @Override
+    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+      long untilExpiration = TimeUnit.MILLISECONDS.toNanos(entry.expiresAtMillis - System.currentTimeMillis());
+      return Math.max(0, Math.min(untilExpiration, maxTtlNanos));
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, entry, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * BCrypt encoder whose cost factor is chosen at startup from a target hashing time, never below a configured
+ * floor. Hashes stored with a lower cost are reported by {@link #upgradeEncoding(String)}, which lets the
+ * authentication provider rehash them on the next successful login. Higher costs are left alone, so nodes
+ * that calibrate to different costs never rehash each other's hashes back and forth, and stored hashes are
+ * never weakened.
+ */
+public class AdaptiveBCryptPasswordEncoder implements PasswordEncoder {
+  private static final Logger logger = LoggerFactory.getLogger(AdaptiveBCryptPasswordEncoder.class);
+
+  private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abyx]?\\$(\\d\\d)\\$");
+
+  private static final int PROBE_STRENGTH = 8;
+
+  private static final int CALIBRATION_ROUNDS = 3;
+
+  private final int strength;
+
+  private final BCryptPasswordEncoder delegate;
+
+  public AdaptiveBCryptPasswordEncoder(int strength) {
+    this.strength = strength;
+    this.delegate = new BCryptPasswordEncoder(strength);
+  }
+
+  /**
+   * Picks the highest cost up to maxStrength whose hashing time stays under targetMillis on this host, then
+   * raises it to minStrength if the host is too slow for the floor. Each cost step doubles the work, so a
+   * single measurement at a low cost is enough to extrapolate.
+   */
+  public static AdaptiveBCryptPasswordEncoder calibrated(long targetMillis, int minStrength, int maxStrength) {
+    BCryptPasswordEncoder probe = new BCryptPasswordEncoder(PROBE_STRENGTH);
+    long bestNanos = Long.MAX_VALUE;
+    for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+      long start = System.nanoTime();
+      probe.encode("calibration");
+      bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+    }
+
+    int calibrated = PROBE_STRENGTH;
+    double estimatedMillis = bestNanos / 1_000_000d;
+    while (calibrated < maxStrength && estimatedMillis * 2 <= targetMillis) {
+      calibrated++;
+      estimatedMillis *= 2;
+    }
+
+    int strength = Math.max(calibrated, minStrength);
+    logger.info("BCrypt cost set to {} (calibrated {} at ~{} ms per hash for a target of {} ms, floor {})",
+        strength, calibrated, Math.round(estimatedMillis), targetMillis, minStrength);
+    return new AdaptiveBCryptPasswordEncoder(strength);
+  }
+
+  public int getStrength() {
+    return strength;
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return delegate.encode(rawPassword);
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return delegate.matches(rawPassword, encodedPassword);
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    if (encodedPassword == null) {
+      return false;
+    }
+    Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+    return matcher.find() && Integer.parseInt(matcher.group(1)) < strength;
+  }
+}
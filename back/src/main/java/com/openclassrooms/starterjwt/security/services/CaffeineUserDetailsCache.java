@@ -0,0 +1,60 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded, TTL-based {@link UserDetailsCache}. Hits, misses and evictions are published as cache.* metrics
+ * tagged cache=userDetails, and the time spent loading a missing user as the userDetails.cache.load timer.
+ */
+@Component
+@ConditionalOnProperty(name = "oc.app.userDetailsCacheEnabled", havingValue = "true", matchIfMissing = true)
+public class CaffeineUserDetailsCache implements UserDetailsCache {
+  private final Cache<String, UserDetailsImpl> cache;
+
+  private final Timer loadTimer;
+
+  public CaffeineUserDetailsCache(@Value("${oc.app.userDetailsCacheMaxSize}") long maxSize,
+      @Value("${oc.app.userDetailsCacheTtlMs}") long ttlMs,
+      MeterRegistry meterRegistry) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(Duration.ofMillis(ttlMs))
+        .recordStats()
+        .build();
+    this.loadTimer = meterRegistry.timer("userDetails.cache.load");
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+  }
+
+  @Override
+  public UserDetailsImpl get(String email, Function<String, UserDetailsImpl> loader) {
+    return cache.get(email, key -> loadTimer.record(() -> loader.apply(key)));
+  }
+
+  @Override
+  public void invalidate(String email) {
+    cache.invalidate(email);
+  }
+
+  @Override
+  public void invalidateUser(Long userId) {
+    cache.asMap().values().removeIf(userDetails -> Objects.equals(userDetails.getId(), userId));
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+}
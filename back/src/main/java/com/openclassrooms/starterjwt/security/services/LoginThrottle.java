@@ -0,0 +1,127 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.openclassrooms.starterjwt.exception.TooManyRequestsException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Per-email and per-client-IP token buckets checked before a login is allowed to spend a BCrypt verification.
+ * Each bucket is a single {@link AtomicLong} updated with CAS (GCRA form of a token bucket). Buckets are kept in
+ * bounded caches and dropped once idle long enough to be full again, so forgetting them changes nothing.
+ */
+@Component
+public class LoginThrottle {
+  private final Limiter emailLimiter;
+
+  private final Limiter ipLimiter;
+
+  private final Counter allowed;
+
+  private final Counter throttledByEmail;
+
+  private final Counter throttledByIp;
+
+  public LoginThrottle(@Value("${oc.app.loginThrottleEmailBurst}") int emailBurst,
+      @Value("${oc.app.loginThrottleEmailRefillMs}") long emailRefillMs,
+      @Value("${oc.app.loginThrottleIpBurst}") int ipBurst,
+      @Value("${oc.app.loginThrottleIpRefillMs}") long ipRefillMs,
+      @Value("${oc.app.loginThrottleMaxEntries}") long maxEntries,
+      MeterRegistry meterRegistry) {
+    this.emailLimiter = new Limiter(emailBurst, emailRefillMs, maxEntries);
+    this.ipLimiter = new Limiter(ipBurst, ipRefillMs, maxEntries);
+    this.allowed = meterRegistry.counter("auth.login.throttle", "outcome", "allowed");
+    this.throttledByEmail = meterRegistry.counter("auth.login.throttle", "outcome", "throttled_email");
+    this.throttledByIp = meterRegistry.counter("auth.login.throttle", "outcome", "throttled_ip");
+  }
+
+  /**
+   * Takes one token from both buckets, or throws a {@link TooManyRequestsException} without taking any.
+   */
+  public void acquire(String email, String clientIp) {
+    long now = System.nanoTime();
+
+    long ipWait = ipLimiter.tryAcquire(clientIp, now);
+    if (ipWait > 0) {
+      throttledByIp.increment();
+      throw new TooManyRequestsException(toRetryAfterSeconds(ipWait));
+    }
+
+    long emailWait = emailLimiter.tryAcquire(normalize(email), now);
+    if (emailWait > 0) {
+      ipLimiter.refund(clientIp);
+      throttledByEmail.increment();
+      throw new TooManyRequestsException(toRetryAfterSeconds(emailWait));
+    }
+    allowed.increment();
+  }
+
+  /**
+   * Gives the tokens back after a successful login, so only failed attempts count against the limits.
+   */
+  public void refund(String email, String clientIp) {
+    ipLimiter.refund(clientIp);
+    emailLimiter.refund(normalize(email));
+  }
+
+  private static String normalize(String email) {
+    return email.toLowerCase(Locale.ROOT);
+  }
+
+  private static long toRetryAfterSeconds(long waitNanos) {
+    return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+  }
+
+  static final class Limiter {
+    private final long intervalNanos;
+
+    private final long toleranceNanos;
+
+    private final Cache<String, AtomicLong> buckets;
+
+    Limiter(int burst, long refillMs, long maxEntries) {
+      this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(refillMs);
+      this.toleranceNanos = (burst - 1) * intervalNanos;
+      this.buckets = Caffeine.newBuilder()
+          .maximumSize(maxEntries)
+          .expireAfterAccess(Duration.ofMillis(burst * refillMs))
+          .build();
+    }
+
+    /**
+     * Returns 0 when a token was taken, otherwise how long to wait for the next one.
+     */
+    long tryAcquire(String key, long nowNanos) {
+      // Each bucket stores its theoretical arrival time: the instant at which it will be full again.
+      AtomicLong bucket = buckets.get(key, k -> new AtomicLong(nowNanos));
+      while (true) {
+        long theoreticalArrival = bucket.get();
+        long start = Math.max(theoreticalArrival, nowNanos);
+        long wait = start - toleranceNanos - nowNanos;
+        if (wait > 0) {
+          return wait;
+        }
+        if (bucket.compareAndSet(theoreticalArrival, start + intervalNanos)) {
+          return 0;
+        }
+      }
+    }
+
+    void refund(String key) {
+      AtomicLong bucket = buckets.getIfPresent(key);
+      if (bucket != null) {
+        bucket.addAndGet(-intervalNanos);
+      }
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.function.Function;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pass-through {@link UserDetailsCache} used when {@code oc.app.userDetailsCacheEnabled=false}.
+ */
+@Component
+@ConditionalOnProperty(name = "oc.app.userDetailsCacheEnabled", havingValue = "false")
+public class NoOpUserDetailsCache implements UserDetailsCache {
+  @Override
+  public UserDetailsImpl get(String email, Function<String, UserDetailsImpl> loader) {
+    return loader.apply(email);
+  }
+
+  @Override
+  public void invalidate(String email) {
+  }
+
+  @Override
+  public void invalidateUser(Long userId) {
+  }
+}
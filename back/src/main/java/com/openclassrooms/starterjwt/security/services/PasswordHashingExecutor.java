@@ -0,0 +1,109 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Bounded pool running the BCrypt work of the auth endpoints, so a login storm cannot take over the servlet
+ * threads. When both the threads and the queue are busy, {@link #submit(Supplier)} fails fast with a
+ * {@link ServiceUnavailableException} instead of queueing without limit. Bulk work shares the same threads
+ * through {@link #submitBulk(Supplier)}, which leaves half of the queue to the auth endpoints.
+ */
+@Component
+public class PasswordHashingExecutor {
+  private static final long BULK_BACKOFF_MS = 10;
+
+  private final ThreadPoolExecutor executor;
+
+  private final int bulkQueueLimit;
+
+  private final Counter rejections;
+
+  private final long retryAfterSeconds;
+
+  public PasswordHashingExecutor(@Value("${oc.app.passwordHashingThreads}") int threads,
+      @Value("${oc.app.passwordHashingQueueCapacity}") int queueCapacity,
+      @Value("${oc.app.passwordHashingRetryAfterSeconds}") long retryAfterSeconds,
+      MeterRegistry meterRegistry) {
+    int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), new HashingThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+    this.bulkQueueLimit = Math.max(1, queueCapacity / 2);
+    this.retryAfterSeconds = retryAfterSeconds;
+    this.rejections = meterRegistry.counter("auth.hashing.rejected");
+    new ExecutorServiceMetrics(executor, "passwordHashing", Collections.emptyList()).bindTo(meterRegistry);
+  }
+
+  public <T> CompletableFuture<T> submit(Supplier<T> task) {
+    try {
+      return CompletableFuture.supplyAsync(task, executor);
+    } catch (RejectedExecutionException e) {
+      rejections.increment();
+      throw new ServiceUnavailableException(retryAfterSeconds);
+    }
+  }
+
+  /**
+   * Runs a task of a bulk operation, such as a user import. Instead of being rejected, the caller waits while
+   * half of the queue or more is taken, so bulk work never uses up the room kept for logins and registrations.
+   */
+  public <T> CompletableFuture<T> submitBulk(Supplier<T> task) {
+    while (true) {
+      if (executor.getQueue().size() < bulkQueueLimit) {
+        try {
+          return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+          // Filled up by the auth endpoints in the meantime; wait like when the queue was busy.
+        }
+      }
+      try {
+        Thread.sleep(BULK_BACKOFF_MS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ServiceUnavailableException(retryAfterSeconds);
+      }
+    }
+  }
+
+  public int getQueueDepth() {
+    return executor.getQueue().size();
+  }
+
+  public long getRejectionCount() {
+    return (long) rejections.count();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  private static final class HashingThreadFactory implements ThreadFactory {
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "password-hashing-" + sequence.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.openclassrooms.starterjwt.models.RefreshToken;
+import com.openclassrooms.starterjwt.repository.RefreshTokenRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+/**
+ * Issues and rotates opaque refresh tokens. Only the SHA-256 of a token is stored, so the table row is
+ * fixed-size and a leaked dump cannot be replayed. Rotation looks the row up once through the unique
+ * hash index, with the user fetched in the same query, and swaps the hash with a conditional update
+ * by primary key: a token presented twice concurrently is honoured only once.
+ */
+@Service
+public class RefreshTokenService {
+  private static final int TOKEN_BYTES = 32;
+
+  private final SecureRandom random = new SecureRandom();
+
+  private final RefreshTokenRepository refreshTokenRepository;
+
+  private final UserRepository userRepository;
+
+  private final Duration refreshTokenTtl;
+
+  public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+      UserRepository userRepository,
+      @Value("${oc.app.refreshTokenExpirationMs}") long refreshTokenExpirationMs) {
+    this.refreshTokenRepository = refreshTokenRepository;
+    this.userRepository = userRepository;
+    this.refreshTokenTtl = Duration.ofMillis(refreshTokenExpirationMs);
+  }
+
+  /**
+   * Creates a refresh token for the user and returns its raw value, which is never stored.
+   */
+  @Transactional
+  public String issue(Long userId) {
+    String token = newToken();
+    refreshTokenRepository.save(RefreshToken.builder()
+        .tokenHash(hash(token))
+        .user(userRepository.getById(userId))
+        .expiresAt(LocalDateTime.now().plus(refreshTokenTtl))
+        .build());
+    return token;
+  }
+
+  /**
+   * Exchanges a refresh token for a new one. Empty when the token is unknown, expired or was
+   * already rotated by a concurrent request.
+   */
+  @Transactional
+  public Optional<Rotation> rotate(String token) {
+    String currentHash = hash(token);
+    Optional<RefreshToken> stored = refreshTokenRepository.findByTokenHashWithUser(currentHash);
+    if (!stored.isPresent()) {
+      return Optional.empty();
+    }
+
+    RefreshToken refreshToken = stored.get();
+    LocalDateTime now = LocalDateTime.now();
+    if (!refreshToken.getExpiresAt().isAfter(now)) {
+      refreshTokenRepository.deleteById(refreshToken.getId());
+      return Optional.empty();
+    }
+
+    String next = newToken();
+    int rotated = refreshTokenRepository.rotate(refreshToken.getId(), currentHash, hash(next),
+        now.plus(refreshTokenTtl));
+    if (rotated == 0) {
+      return Optional.empty();
+    }
+    return Optional.of(new Rotation(UserDetailsImpl.from(refreshToken.getUser()), next));
+  }
+
+  /**
+   * Deletes the refresh token, if it exists, so it can no longer be exchanged.
+   */
+  @Transactional
+  public void revoke(String token) {
+    refreshTokenRepository.deleteByTokenHash(hash(token));
+  }
+
+  @Scheduled(initialDelayString = "${oc.app.refreshTokenPurgeIntervalMs}", fixedDelayString = "${oc.app.refreshTokenPurgeIntervalMs}")
+  @Transactional
+  public void purgeExpired() {
+    refreshTokenRepository.deleteExpired(LocalDateTime.now());
+  }
+
+  private String newToken() {
+    byte[] bytes = new byte[TOKEN_BYTES];
+    random.nextBytes(bytes);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+  }
+
+  static String hash(String token) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  public static class Rotation {
+    private final UserDetailsImpl userDetails;
+
+    private final String refreshToken;
+
+    public Rotation(UserDetailsImpl userDetails, String refreshToken) {
+      this.userDetails = userDetails;
+      this.refreshToken = refreshToken;
+    }
+
+    public UserDetailsImpl getUserDetails() {
+      return userDetails;
+    }
+
+    public String getRefreshToken() {
+      return refreshToken;
+    }
+  }
+}
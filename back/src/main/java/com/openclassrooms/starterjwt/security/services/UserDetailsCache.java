@@ -0,0 +1,14 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.function.Function;
+
+/**
+ * Read-through cache of {@link UserDetailsImpl} keyed by email, sitting in front of {@link UserDetailsServiceImpl}.
+ */
+public interface UserDetailsCache {
+  UserDetailsImpl get(String email, Function<String, UserDetailsImpl> loader);
+
+  void invalidate(String email);
+
+  void invalidateUser(Long userId);
+}
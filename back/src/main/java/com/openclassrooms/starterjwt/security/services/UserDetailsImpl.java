@@ -1,13 +1,18 @@
 package com.openclassrooms.starterjwt.security.services;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Objects;
+import java.util.Set;
 
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.openclassrooms.starterjwt.models.User;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -19,6 +24,12 @@ import lombok.Getter;
 public class UserDetailsImpl implements UserDetails {
   private static final long serialVersionUID = 1L;
 
+  private static final Set<GrantedAuthority> USER_AUTHORITIES =
+      Collections.singleton(new SimpleGrantedAuthority("ROLE_USER"));
+
+  private static final Set<GrantedAuthority> ADMIN_AUTHORITIES = Collections.unmodifiableSet(new HashSet<>(
+      Arrays.asList(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN"))));
+
   private Long id;
 
   private String username;
@@ -31,9 +42,21 @@ public class UserDetailsImpl implements UserDetails {
 
   @JsonIgnore
   private String password;  
+
+  public static UserDetailsImpl from(User user) {
+    return UserDetailsImpl
+            .builder()
+            .id(user.getId())
+            .username(user.getEmail())
+            .lastName(user.getLastName())
+            .firstName(user.getFirstName())
+            .admin(user.isAdmin())
+            .password(user.getPassword())
+            .build();
+  }
   
-  public Collection<? extends GrantedAuthority> getAuthorities() {        
-      return new HashSet<GrantedAuthority>();
+  public Collection<? extends GrantedAuthority> getAuthorities() {
+      return Boolean.TRUE.equals(admin) ? ADMIN_AUTHORITIES : USER_AUTHORITIES;
   }
 
   @Override
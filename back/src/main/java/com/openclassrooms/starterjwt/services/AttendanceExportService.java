@@ -0,0 +1,118 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Exports every session with its teacher and participant emails as NDJSON or CSV. Sessions, teachers and
+ * participants come from a single join read with a fetch size, in session id order, so an interrupted export
+ * resumes by passing the id of the last session received.
+ */
+@Service
+public class AttendanceExportService {
+    private static final String SELECT_ATTENDANCE = "SELECT s.id, s.name, s.date, s.teacher_id, "
+            + "t.first_name AS teacher_first_name, t.last_name AS teacher_last_name, u.email "
+            + "FROM SESSIONS s "
+            + "LEFT JOIN TEACHERS t ON t.id = s.teacher_id "
+            + "LEFT JOIN PARTICIPATE p ON p.session_id = s.id "
+            + "LEFT JOIN USERS u ON u.id = p.user_id "
+            + "WHERE s.id > ? ORDER BY s.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    public AttendanceExportService(DataSource dataSource,
+                                   ObjectMapper objectMapper,
+                                   @Value("${oc.app.sessionStreamFetchSize}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Returns the number of sessions written.
+     */
+    public int exportNdjson(OutputStream out, Long afterSessionId) throws IOException {
+        return export(AttendanceExportWriter.ndjson(out, objectMapper.getFactory()), afterSessionId);
+    }
+
+    /**
+     * Returns the number of sessions written.
+     */
+    public int exportCsv(OutputStream out, Long afterSessionId) throws IOException {
+        return export(AttendanceExportWriter.csv(out), afterSessionId);
+    }
+
+    private int export(AttendanceExportWriter writer, Long afterSessionId) throws IOException {
+        AttendanceRowWriter rowWriter = new AttendanceRowWriter(writer);
+        try {
+            jdbcTemplate.query(SELECT_ATTENDANCE, rowWriter, afterSessionId != null ? afterSessionId : 0L);
+            rowWriter.endCurrent();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+        return rowWriter.written;
+    }
+
+    /**
+     * Starts a session on its first row and ends it when the next session starts.
+     */
+    private static final class AttendanceRowWriter implements RowCallbackHandler {
+        private final AttendanceExportWriter writer;
+
+        private Long current;
+
+        private int written;
+
+        private AttendanceRowWriter(AttendanceExportWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long id = rs.getLong("id");
+            try {
+                if (current == null || current != id) {
+                    endCurrent();
+                    Timestamp date = rs.getTimestamp("date");
+                    writer.startSession(id, rs.getString("name"), date != null ? date.toLocalDateTime() : null,
+                            rs.getObject("teacher_id", Long.class),
+                            rs.getString("teacher_first_name"), rs.getString("teacher_last_name"));
+                    current = id;
+                }
+                String email = rs.getString("email");
+                if (email != null) {
+                    writer.participant(email);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void endCurrent() {
+            if (current == null) {
+                return;
+            }
+            try {
+                writer.endSession();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            current = null;
+            written++;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes an attendance export one participant at a time, so not even a whole session has to sit in memory.
+ * Each session is one NDJSON line or one CSV record, and its participant emails are written as they are read.
+ */
+abstract class AttendanceExportWriter {
+    static final String[] CSV_COLUMNS = {"sessionId", "sessionName", "date", "teacherId", "teacherFirstName",
+            "teacherLastName", "participantEmails"};
+
+    static final char EMAIL_SEPARATOR = ';';
+
+    abstract void startSession(long id, String name, LocalDateTime date, Long teacherId,
+                               String teacherFirstName, String teacherLastName) throws IOException;
+
+    abstract void participant(String email) throws IOException;
+
+    abstract void endSession() throws IOException;
+
+    /**
+     * Flushes what is buffered without closing the underlying stream.
+     */
+    abstract void finish() throws IOException;
+
+    static AttendanceExportWriter ndjson(OutputStream out, JsonFactory jsonFactory) throws IOException {
+        JsonGenerator generator = jsonFactory.createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(null);
+        return new AttendanceExportWriter() {
+            @Override
+            void startSession(long id, String name, LocalDateTime date, Long teacherId,
+                              String teacherFirstName, String teacherLastName) throws IOException {
+                generator.writeStartObject();
+                generator.writeNumberField("sessionId", id);
+                generator.writeStringField("sessionName", name);
+                generator.writeStringField("date", format(date));
+                if (teacherId != null) {
+                    generator.writeNumberField("teacherId", teacherId);
+                } else {
+                    generator.writeNullField("teacherId");
+                }
+                generator.writeStringField("teacherFirstName", teacherFirstName);
+                generator.writeStringField("teacherLastName", teacherLastName);
+                generator.writeArrayFieldStart("participantEmails");
+            }
+
+            @Override
+            void participant(String email) throws IOException {
+                generator.writeString(email);
+            }
+
+            @Override
+            void endSession() throws IOException {
+                generator.writeEndArray();
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+
+            @Override
+            void finish() throws IOException {
+                generator.close();
+            }
+        };
+    }
+
+    static AttendanceExportWriter csv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(String.join(",", CSV_COLUMNS));
+        writer.write("\r\n");
+        return new AttendanceExportWriter() {
+            private boolean firstEmail;
+
+            @Override
+            void startSession(long id, String name, LocalDateTime date, Long teacherId,
+                              String teacherFirstName, String teacherLastName) throws IOException {
+                writer.write(Long.toString(id));
+                writeField(name);
+                writeField(format(date));
+                writeField(teacherId != null ? teacherId.toString() : null);
+                writeField(teacherFirstName);
+                writeField(teacherLastName);
+                writer.write(",\"");
+                firstEmail = true;
+            }
+
+            @Override
+            void participant(String email) throws IOException {
+                if (!firstEmail) {
+                    writer.write(EMAIL_SEPARATOR);
+                }
+                writer.write(email.replace("\"", "\"\""));
+                firstEmail = false;
+            }
+
+            @Override
+            void endSession() throws IOException {
+                writer.write("\"\r\n");
+            }
+
+            @Override
+            void finish() throws IOException {
+                writer.flush();
+            }
+
+            private void writeField(String value) throws IOException {
+                writer.write(',');
+                if (value != null) {
+                    writer.write(quoteCsv(value));
+                }
+            }
+        };
+    }
+
+    /**
+     * Quotes a CSV field when it holds a separator, a quote or a line break, doubling the quotes inside it.
+     */
+    static String quoteCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String format(LocalDateTime date) {
+        return date != null ? DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(date) : null;
+    }
+}
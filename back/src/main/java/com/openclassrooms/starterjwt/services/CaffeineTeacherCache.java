@@ -0,0 +1,78 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.openclassrooms.starterjwt.models.Teacher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * TTL-based {@link TeacherCache}. Loading the full list also fills the entries by id, so the lookups done
+ * while mapping sessions are served from memory once the list has been read. Hits and misses of both caches
+ * are published as cache.* metrics tagged cache=teachers, with kind=list for the list and kind=id for the
+ * entries by id.
+ */
+@Component
+@ConditionalOnProperty(name = "oc.app.teacherCacheEnabled", havingValue = "true", matchIfMissing = true)
+public class CaffeineTeacherCache implements TeacherCache {
+    private static final String ALL = "all";
+
+    private final Cache<String, List<Teacher>> snapshot;
+
+    private final Cache<Long, Teacher> byId;
+
+    public CaffeineTeacherCache(@Value("${oc.app.teacherCacheMaxSize}") long maxSize,
+                                @Value("${oc.app.teacherCacheTtlMs}") long ttlMs,
+                                MeterRegistry meterRegistry) {
+        this.snapshot = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, snapshot, "teachers", "kind", "list");
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "teachers", "kind", "id");
+    }
+
+    @Override
+    public List<Teacher> getAll(Supplier<List<Teacher>> loader) {
+        return snapshot.get(ALL, key -> {
+            List<Teacher> teachers = Collections.unmodifiableList(loader.get());
+            teachers.forEach(teacher -> byId.put(teacher.getId(), teacher));
+            return teachers;
+        });
+    }
+
+    @Override
+    public Teacher get(Long id, Function<Long, Teacher> loader) {
+        return byId.get(id, loader);
+    }
+
+    @Override
+    public void invalidateAll() {
+        snapshot.invalidateAll();
+        byId.invalidateAll();
+    }
+
+    public CacheStats listStats() {
+        return snapshot.stats();
+    }
+
+    public CacheStats idStats() {
+        return byId.stats();
+    }
+}
@@ -0,0 +1,9 @@
+package com.openclassrooms.starterjwt.services;
+
+/**
+ * Outcome of a request to participate in a session.
+ */
+public enum Enrollment {
+    ENROLLED,
+    WAITLISTED
+}
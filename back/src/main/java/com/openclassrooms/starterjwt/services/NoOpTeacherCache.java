@@ -0,0 +1,30 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.Teacher;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Pass-through {@link TeacherCache} used when {@code oc.app.teacherCacheEnabled=false}.
+ */
+@Component
+@ConditionalOnProperty(name = "oc.app.teacherCacheEnabled", havingValue = "false")
+public class NoOpTeacherCache implements TeacherCache {
+    @Override
+    public List<Teacher> getAll(Supplier<List<Teacher>> loader) {
+        return loader.get();
+    }
+
+    @Override
+    public Teacher get(Long id, Function<Long, Teacher> loader) {
+        return loader.apply(id);
+    }
+
+    @Override
+    public void invalidateAll() {
+    }
+}
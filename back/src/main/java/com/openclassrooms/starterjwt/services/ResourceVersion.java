@@ -0,0 +1,42 @@
+package com.openclassrooms.starterjwt.services;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Strong ETag and Last-Modified date of a resource, checked against conditional GETs before the resource
+ * itself is read.
+ */
+public final class ResourceVersion {
+    private final String etag;
+
+    private final long lastModified;
+
+    private ResourceVersion(String etag, long lastModified) {
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Builds the ETag from the given parts followed by the modification time. A missing time gives no
+     * Last-Modified date.
+     */
+    public static ResourceVersion of(LocalDateTime updatedAt, Object... parts) {
+        long lastModified = updatedAt != null ? updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+        String etag = Stream.concat(Arrays.stream(parts), Stream.of(lastModified))
+                .map(String::valueOf)
+                .collect(Collectors.joining("-", "\"", "\""));
+        return new ResourceVersion(etag, lastModified);
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+}
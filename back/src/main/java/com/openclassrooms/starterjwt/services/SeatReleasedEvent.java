@@ -0,0 +1,17 @@
+package com.openclassrooms.starterjwt.services;
+
+/**
+ * Published when seats may have become free in a session, so its waitlist gets promoted once the
+ * transaction that freed them has committed.
+ */
+public class SeatReleasedEvent {
+    private final Long sessionId;
+
+    public SeatReleasedEvent(Long sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public Long getSessionId() {
+        return sessionId;
+    }
+}
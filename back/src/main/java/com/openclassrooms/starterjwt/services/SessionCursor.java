@@ -0,0 +1,46 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.repository.SessionSummary;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Opaque position in the (date, id) ordering of sessions, handed to clients as the next page cursor.
+ */
+final class SessionCursor {
+    private final Date date;
+
+    private final Long id;
+
+    private SessionCursor(Date date, Long id) {
+        this.date = date;
+        this.id = id;
+    }
+
+    static String after(SessionSummary session) {
+        String position = session.getDate().getTime() + ":" + session.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    static SessionCursor decode(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int separator = position.indexOf(':');
+            return new SessionCursor(new Date(Long.parseLong(position.substring(0, separator))),
+                    Long.valueOf(position.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new BadRequestException();
+        }
+    }
+
+    Date getDate() {
+        return date;
+    }
+
+    Long getId() {
+        return id;
+    }
+}
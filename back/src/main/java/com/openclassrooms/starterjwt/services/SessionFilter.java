@@ -0,0 +1,55 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * Restricts a session listing to a date range, one teacher and sessions with a seat left. Missing bounds are
+ * clamped to the range of the TIMESTAMP date column, so every filtered query keeps a range condition on the
+ * (date, id) or (teacher_id, date) index.
+ */
+@Getter
+public class SessionFilter {
+    static final Date EARLIEST = new Date(86_400_000L);
+
+    static final Date LATEST = new Date(2_145_916_800_000L);
+
+    public static final SessionFilter NONE = new SessionFilter(null, null, null, false);
+
+    private final Date from;
+
+    private final Date to;
+
+    private final Long teacherId;
+
+    private final boolean hasFreeSeats;
+
+    /**
+     * @param from inclusive, or null
+     * @param to exclusive, or null
+     * @throws BadRequestException when {@code to} is not after {@code from}
+     */
+    public SessionFilter(Date from, Date to, Long teacherId, boolean hasFreeSeats) {
+        if (from != null && to != null && !to.after(from)) {
+            throw new BadRequestException();
+        }
+        this.from = from;
+        this.to = to;
+        this.teacherId = teacherId;
+        this.hasFreeSeats = hasFreeSeats;
+    }
+
+    public boolean isEmpty() {
+        return from == null && to == null && teacherId == null && !hasFreeSeats;
+    }
+
+    Date fromOrEarliest() {
+        return from != null ? from : EARLIEST;
+    }
+
+    Date toOrLatest() {
+        return to != null ? to : LATEST;
+    }
+}
@@ -0,0 +1,29 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.repository.SessionSummary;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One bounded window of sessions with their participant ids. {@code nextCursor} is null on the last
+ * window; {@code totalCount} is only known for offset pages, keyset windows skip the count.
+ */
+@Getter
+@AllArgsConstructor
+public class SessionPage {
+    private final List<SessionSummary> sessions;
+
+    private final Map<Long, List<Long>> participantIds;
+
+    private final String nextCursor;
+
+    private final Long totalCount;
+
+    public List<Long> participantIdsOf(Long sessionId) {
+        return participantIds.getOrDefault(sessionId, Collections.emptyList());
+    }
+}
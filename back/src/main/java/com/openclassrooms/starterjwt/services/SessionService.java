@@ -3,76 +3,349 @@ package com.openclassrooms.starterjwt.services;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.models.Session;
-import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
+import com.openclassrooms.starterjwt.repository.Participation;
+import com.openclassrooms.starterjwt.repository.SeatStripe;
+import com.openclassrooms.starterjwt.repository.SessionListVersion;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.SessionSummary;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntBinaryOperator;
 import java.util.stream.Collectors;
 
 @Service
 public class SessionService {
+    private static final Sort SESSION_ORDER = Sort.by("date", "id");
+
     private final SessionRepository sessionRepository;
 
     private final UserRepository userRepository;
 
-    public SessionService(SessionRepository sessionRepository, UserRepository userRepository) {
+    private final WaitlistRepository waitlistRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${oc.app.sessionPageDefaultSize}")
+    private int defaultPageSize;
+
+    @Value("${oc.app.sessionPageMaxSize}")
+    private int maxPageSize;
+
+    @Value("${oc.app.sessionListVersionStripes}")
+    private int listVersionStripes;
+
+    @Value("${oc.app.sessionSeatStripes}")
+    private int seatStripes;
+
+    public SessionService(SessionRepository sessionRepository,
+                          UserRepository userRepository,
+                          WaitlistRepository waitlistRepository,
+                          ApplicationEventPublisher eventPublisher) {
         this.sessionRepository = sessionRepository;
         this.userRepository = userRepository;
+        this.waitlistRepository = waitlistRepository;
+        this.eventPublisher = eventPublisher;
     }
 
+    /**
+     * Saves the session, then spreads its participants and its capacity over its seat rows.
+     */
+    @Transactional
     public Session create(Session session) {
-        return this.sessionRepository.save(session);
+        countParticipants(session);
+        Session created = this.sessionRepository.save(session);
+        for (int stripe = 0; stripe < seatStripes; stripe++) {
+            this.sessionRepository.addSeatStripe(created.getId(), stripe,
+                    share(created.getParticipantCount(), stripe, seatStripes),
+                    created.getCapacity() != null ? share(created.getCapacity(), stripe, seatStripes) : null);
+        }
+        touchList();
+        return created;
     }
 
+    /**
+     * Deletes the seat rows before the session, so the locks come in the same order as in enrollments.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public void delete(Long id) {
+        this.sessionRepository.deleteSeatStripes(id);
         this.sessionRepository.deleteById(id);
+        touchList();
     }
 
     public List<Session> findAll() {
         return this.sessionRepository.findAll();
     }
 
+    /**
+     * Returns the given page of sessions in (date, id) order, with the total count and the cursor of
+     * the following keyset window.
+     */
+    public SessionPage findPage(int page, Integer size, SessionFilter filter) {
+        if (page < 0) {
+            throw new BadRequestException();
+        }
+
+        PageRequest pageRequest = PageRequest.of(page, pageSize(size), SESSION_ORDER);
+        Page<SessionSummary> result;
+        if (filter.isEmpty()) {
+            result = this.sessionRepository.findSummaries(pageRequest);
+        } else if (filter.getTeacherId() != null) {
+            result = this.sessionRepository.findTeacherSummariesBetween(filter.getTeacherId(),
+                    filter.fromOrEarliest(), filter.toOrLatest(), filter.isHasFreeSeats(), pageRequest);
+        } else {
+            result = this.sessionRepository.findSummariesBetween(
+                    filter.fromOrEarliest(), filter.toOrLatest(), filter.isHasFreeSeats(), pageRequest);
+        }
+        return toPage(result, result.getTotalElements());
+    }
+
+    /**
+     * Returns the sessions following the cursor, reading only the requested window.
+     */
+    public SessionPage findAfter(String cursor, Integer size, SessionFilter filter) {
+        SessionCursor position = SessionCursor.decode(cursor);
+
+        PageRequest pageRequest = PageRequest.of(0, pageSize(size));
+        Slice<SessionSummary> result;
+        if (filter.isEmpty()) {
+            result = this.sessionRepository.findSummariesAfter(position.getDate(), position.getId(), pageRequest);
+        } else if (filter.getTeacherId() != null) {
+            result = this.sessionRepository.findTeacherSummariesBetweenAfter(filter.getTeacherId(),
+                    filter.fromOrEarliest(), filter.toOrLatest(), filter.isHasFreeSeats(),
+                    position.getDate(), position.getId(), pageRequest);
+        } else {
+            result = this.sessionRepository.findSummariesBetweenAfter(
+                    filter.fromOrEarliest(), filter.toOrLatest(), filter.isHasFreeSeats(),
+                    position.getDate(), position.getId(), pageRequest);
+        }
+        return toPage(result, null);
+    }
+
+    public SessionSummary getSummaryById(Long id) {
+        return this.sessionRepository.findSummaryById(id).orElse(null);
+    }
+
+    public ResourceVersion versionOf(SessionSummary session) {
+        return ResourceVersion.of(session.getLastModified(), "session", session.getId(), session.getRevision());
+    }
+
+    /**
+     * Version of the whole session list, read from the counter that every session write, deletion and
+     * enrollment moves. Any page of the list is unchanged as long as it is.
+     */
+    public ResourceVersion getListVersion() {
+        SessionListVersion version = this.sessionRepository.findListVersion();
+        LocalDateTime updatedAt = version.getUpdatedAt() != null
+                ? LocalDateTime.ofInstant(version.getUpdatedAt().toInstant(), ZoneId.systemDefault())
+                : null;
+        return ResourceVersion.of(updatedAt, "sessions", version.getVersion());
+    }
+
+    /**
+     * Returns the participant ids of each session, read in one query over the join table.
+     */
+    public Map<Long, List<Long>> findParticipantIds(Collection<Long> sessionIds) {
+        if (sessionIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<Long, List<Long>> participantIds = new HashMap<>();
+        for (Participation participation : this.sessionRepository.findParticipations(sessionIds)) {
+            participantIds.computeIfAbsent(participation.getSessionId(), id -> new ArrayList<>()).add(participation.getUserId());
+        }
+        return participantIds;
+    }
+
     public Session getById(Long id) {
         return this.sessionRepository.findById(id).orElse(null);
     }
 
+    /**
+     * Updates the details and capacity of the session with a single targeted update. Participants are left to
+     * enrollment, so a concurrent enrollment is never overwritten. The seat rows are locked first, as in
+     * enrollments, and given new quotas that add up to the new capacity. A capacity below the current
+     * participant count is rejected.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public Session update(Long id, Session session) {
-        session.setId(id);
-        return this.sessionRepository.save(session);
-    }
+        List<SeatStripe> stripes = this.sessionRepository.lockSeatStripes(id);
+        int taken = stripes.stream().mapToInt(SeatStripe::getTaken).sum();
+        Integer capacity = session.getCapacity();
+        if (capacity != null && taken > capacity) {
+            throw new BadRequestException();
+        }
 
-    public void participate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        User user = this.userRepository.findById(userId).orElse(null);
-        if (session == null || user == null) {
+        Long teacherId = session.getTeacher() != null ? session.getTeacher().getId() : null;
+        if (this.sessionRepository.updateDetails(id, session.getName(), session.getDescription(), session.getDate(),
+                teacherId, capacity) == 0) {
             throw new NotFoundException();
         }
-
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(alreadyParticipate) {
-            throw new BadRequestException();
+        for (int i = 0; i < stripes.size(); i++) {
+            SeatStripe stripe = stripes.get(i);
+            this.sessionRepository.setSeatQuota(id, stripe.getStripe(),
+                    capacity != null ? stripe.getTaken() + share(capacity - taken, i, stripes.size()) : null);
         }
+        touchList();
+        // A raised capacity may free seats for the waitlist.
+        this.eventPublisher.publishEvent(new SeatReleasedEvent(id));
+        return this.sessionRepository.findById(id).orElseThrow(NotFoundException::new);
+    }
 
-        session.getUsers().add(user);
+    /**
+     * Takes a seat with a conditional update of one of the seat rows of the session, then records the
+     * participant with a single insert. The exclusive lock on the seat row comes first, before the shared
+     * locks that the foreign keys of the insert take on the session and user rows, and the session row itself
+     * is never updated, so concurrent enrollments cannot deadlock on it. Runs at READ COMMITTED, so seat rows
+     * found full are not kept locked. When no seat is left, or people are already waiting for one, the user
+     * joins the end of the waitlist. The session and user are only looked up to tell why nothing was taken.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public Enrollment participate(Long id, Long userId) {
+        if (onAnySeatStripe((from, to) -> this.sessionRepository.takeSeat(id, from, to))) {
+            if (this.sessionRepository.addParticipant(id, userId) == 0) {
+                // Already enrolled or unknown user; the exception rolls the seat back.
+                if (!this.userRepository.existsById(userId)) {
+                    throw new NotFoundException();
+                }
+                throw new BadRequestException();
+            }
+            touchList();
+            return Enrollment.ENROLLED;
+        }
 
-        this.sessionRepository.save(session);
+        if (!this.sessionRepository.existsById(id) || !this.userRepository.existsById(userId)) {
+            throw new NotFoundException();
+        }
+        if (this.sessionRepository.countParticipant(id, userId) > 0 || this.waitlistRepository.enqueue(id, userId) == 0) {
+            throw new BadRequestException();
+        }
+        return Enrollment.WAITLISTED;
     }
 
+    /**
+     * Withdraws the user from the session, or from its waitlist. The seat row is updated before the
+     * participant row is deleted, in the same order as enrollments. A freed seat is handed to the waitlist
+     * after the commit, off the calling thread.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public void noLongerParticipate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        if (session == null) {
+        if (this.sessionRepository.countParticipant(id, userId) > 0) {
+            onAnySeatStripe((from, to) -> this.sessionRepository.releaseSeat(id, from, to));
+            if (this.sessionRepository.removeParticipant(id, userId) == 0) {
+                // Withdrawn concurrently; the exception rolls the seat back.
+                throw new BadRequestException();
+            }
+            touchList();
+            this.eventPublisher.publishEvent(new SeatReleasedEvent(id));
+            return;
+        }
+
+        if (this.waitlistRepository.dequeue(id, userId) == 1) {
+            return;
+        }
+
+        if (!this.sessionRepository.existsById(id)) {
             throw new NotFoundException();
         }
+        throw new BadRequestException();
+    }
+
+    /**
+     * Moves up to {@code batchSize} users from the head of the waitlist into the session, while seats are
+     * left. An entry is removed whether its user got enrolled or already was, so running a batch twice
+     * enrolls nobody twice. Returns true when the batch was full and more users may be promoted.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public boolean promoteWaitlisted(Long id, int batchSize) {
+        List<WaitlistEntry> head = this.waitlistRepository.findHead(id, PageRequest.of(0, batchSize));
+        boolean promoted = false;
+        boolean seatsLeft = true;
+        for (WaitlistEntry entry : head) {
+            if (!onAnySeatStripe((from, to) -> this.sessionRepository.takeWaitlistedSeat(id, from, to))) {
+                seatsLeft = false;
+                break;
+            }
+            if (this.sessionRepository.addParticipant(id, entry.getUserId()) == 0) {
+                onAnySeatStripe((from, to) -> this.sessionRepository.releaseSeat(id, from, to));
+            } else {
+                promoted = true;
+            }
+            this.waitlistRepository.deleteByPosition(entry.getPosition());
+        }
+        if (promoted) {
+            touchList();
+        }
+        return seatsLeft && head.size() == batchSize;
+    }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(!alreadyParticipate) {
+    private static void countParticipants(Session session) {
+        int participants = session.getUsers() != null ? session.getUsers().size() : 0;
+        if (session.getCapacity() != null && participants > session.getCapacity()) {
             throw new BadRequestException();
         }
+        session.setParticipantCount(participants);
+    }
+
+    /**
+     * Applies a conditional seat update to the first seat row that it matches, starting from a random row so
+     * that concurrent enrollments into the same session spread over its rows. Returns false when no row matched.
+     */
+    private boolean onAnySeatStripe(IntBinaryOperator update) {
+        int start = ThreadLocalRandom.current().nextInt(seatStripes);
+        return update.applyAsInt(start, Integer.MAX_VALUE) == 1 || (start > 0 && update.applyAsInt(0, start) == 1);
+    }
 
-        session.setUsers(session.getUsers().stream().filter(user -> !user.getId().equals(userId)).collect(Collectors.toList()));
+    /**
+     * Share of {@code total} held by one of {@code count} seat rows, the first rows taking the remainder.
+     */
+    private static int share(int total, int stripe, int count) {
+        return total / count + (stripe < total % count ? 1 : 0);
+    }
+
+    /**
+     * Moves the session list version. Called last in each write, so its counter row is locked only until
+     * the commit that follows.
+     */
+    private void touchList() {
+        this.sessionRepository.bumpListVersion(ThreadLocalRandom.current().nextInt(listVersionStripes));
+    }
+
+    private int pageSize(Integer size) {
+        if (size == null) {
+            return defaultPageSize;
+        }
+        if (size < 1) {
+            throw new BadRequestException();
+        }
+        return Math.min(size, maxPageSize);
+    }
 
-        this.sessionRepository.save(session);
+    private SessionPage toPage(Slice<SessionSummary> window, Long totalCount) {
+        List<SessionSummary> sessions = window.getContent();
+        String nextCursor = window.hasNext() ? SessionCursor.after(sessions.get(sessions.size() - 1)) : null;
+        Map<Long, List<Long>> participantIds = findParticipantIds(
+                sessions.stream().map(SessionSummary::getId).collect(Collectors.toList()));
+        return new SessionPage(sessions, participantIds, nextCursor, totalCount);
     }
 }
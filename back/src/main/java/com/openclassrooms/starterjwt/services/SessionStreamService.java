@@ -0,0 +1,127 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Writes every session as one JSON array, in the same shape as {@code GET /api/session}, while reading them.
+ * Sessions and their participants come from a single join read with a fetch size, and each session is
+ * written as soon as its last row has been read, so only one session is held in memory at a time.
+ */
+@Service
+public class SessionStreamService {
+    private static final String SELECT_SESSIONS = "SELECT s.id, s.name, s.date, s.description, s.teacher_id, s.capacity, "
+            + "(SELECT COALESCE(SUM(st.taken), 0) FROM SESSION_SEATS st WHERE st.session_id = s.id) AS participant_count, "
+            + "s.created_at, s.updated_at, p.user_id "
+            + "FROM SESSIONS s LEFT JOIN PARTICIPATE p ON p.session_id = s.id ORDER BY s.date, s.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectWriter writer;
+
+    public SessionStreamService(DataSource dataSource,
+                                ObjectMapper objectMapper,
+                                @Value("${oc.app.sessionStreamFetchSize}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.writer = objectMapper.writerFor(SessionDto.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Returns the number of sessions written.
+     */
+    public int writeJsonArray(OutputStream out) throws IOException {
+        try (JsonGenerator generator = writer.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+            SessionRowWriter rowWriter = new SessionRowWriter(generator);
+            try {
+                jdbcTemplate.query(SELECT_SESSIONS, rowWriter);
+                rowWriter.writeCurrent();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.writeEndArray();
+            return rowWriter.written;
+        }
+    }
+
+    /**
+     * Folds the consecutive rows of a session into one dto and writes it when the next session starts.
+     */
+    private final class SessionRowWriter implements RowCallbackHandler {
+        private final JsonGenerator generator;
+
+        private SessionDto current;
+
+        private int written;
+
+        private SessionRowWriter(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long id = rs.getLong("id");
+            if (current == null || !Objects.equals(current.getId(), id)) {
+                writeCurrent();
+                current = toDto(id, rs);
+            }
+            long userId = rs.getLong("user_id");
+            if (!rs.wasNull()) {
+                current.getUsers().add(userId);
+            }
+        }
+
+        private void writeCurrent() {
+            if (current == null) {
+                return;
+            }
+            try {
+                writer.writeValue(generator, current);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            current = null;
+            written++;
+        }
+    }
+
+    private static SessionDto toDto(long id, ResultSet rs) throws SQLException {
+        SessionDto session = new SessionDto();
+        session.setId(id);
+        session.setName(rs.getString("name"));
+        Timestamp date = rs.getTimestamp("date");
+        session.setDate(date != null ? new Date(date.getTime()) : null);
+        session.setDescription(rs.getString("description"));
+        session.setTeacher_id(rs.getObject("teacher_id", Long.class));
+        session.setCapacity(rs.getObject("capacity", Integer.class));
+        session.setParticipantCount(rs.getInt("participant_count"));
+        session.setCreatedAt(toLocalDateTime(rs.getTimestamp("created_at")));
+        session.setUpdatedAt(toLocalDateTime(rs.getTimestamp("updated_at")));
+        session.setUsers(new ArrayList<>());
+        return session;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,19 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.Teacher;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Near cache in front of {@link TeacherService}: a snapshot of the full list plus entries by id. Cached
+ * teachers are shared between requests and must be treated as read-only.
+ */
+public interface TeacherCache {
+    List<Teacher> getAll(Supplier<List<Teacher>> loader);
+
+    Teacher get(Long id, Function<Long, Teacher> loader);
+
+    void invalidateAll();
+}
@@ -0,0 +1,38 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.Teacher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Entity listener clearing the {@link TeacherCache} whenever a teacher is written through JPA. The cache is
+ * cleared after the commit, so a concurrent read cannot cache the row as it was before. Writes made outside
+ * this application are picked up when the entries expire.
+ */
+public class TeacherCacheInvalidator {
+    private final TeacherCache teacherCache;
+
+    public TeacherCacheInvalidator(TeacherCache teacherCache) {
+        this.teacherCache = teacherCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onWrite(Teacher teacher) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            teacherCache.invalidateAll();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                teacherCache.invalidateAll();
+            }
+        });
+    }
+}
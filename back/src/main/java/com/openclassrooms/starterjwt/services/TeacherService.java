@@ -4,21 +4,41 @@ import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 
 @Service
 public class TeacherService {
     private final TeacherRepository teacherRepository;
 
-    public TeacherService(TeacherRepository teacherRepository) {
+    private final TeacherCache teacherCache;
+
+    public TeacherService(TeacherRepository teacherRepository, TeacherCache teacherCache) {
         this.teacherRepository = teacherRepository;
+        this.teacherCache = teacherCache;
     }
 
     public List<Teacher> findAll() {
-        return this.teacherRepository.findAll();
+        return this.teacherCache.getAll(this.teacherRepository::findAll);
     }
 
     public Teacher findById(Long id) {
-        return this.teacherRepository.findById(id).orElse(null);
+        return this.teacherCache.get(id, key -> this.teacherRepository.findById(key).orElse(null));
+    }
+
+    public ResourceVersion versionOf(Teacher teacher) {
+        return ResourceVersion.of(teacher.getUpdatedAt(), "teacher", teacher.getId());
+    }
+
+    /**
+     * Version of the teacher list, computed from the list itself, which the near cache keeps in memory.
+     */
+    public ResourceVersion versionOf(List<Teacher> teachers) {
+        long maxId = teachers.stream().mapToLong(Teacher::getId).max().orElse(0);
+        LocalDateTime updatedAt = teachers.stream().map(Teacher::getUpdatedAt).filter(Objects::nonNull)
+                .max(Comparator.naturalOrder()).orElse(null);
+        return ResourceVersion.of(updatedAt, "teachers", teachers.size(), maxId);
     }
 }
@@ -0,0 +1,159 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.payload.request.SignupRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads an import body one line at a time, so the whole upload never has to sit in memory.
+ * CSV bodies start with a header naming the email, firstName, lastName and password columns in any order.
+ */
+abstract class UserImportReader {
+    private static final String[] REQUIRED_COLUMNS = {"email", "firstName", "lastName", "password"};
+
+    static final class Row {
+        final int line;
+        final SignupRequest request;
+        final String error;
+
+        Row(int line, SignupRequest request, String error) {
+            this.line = line;
+            this.request = request;
+            this.error = error;
+        }
+    }
+
+    private final BufferedReader reader;
+    private int line;
+
+    UserImportReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Returns the next row, or null at the end of the body.
+     */
+    abstract Row next() throws IOException;
+
+    /**
+     * Returns the next non-blank line, or null at the end of the body.
+     */
+    String nextLine() throws IOException {
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (!text.trim().isEmpty()) {
+                return text;
+            }
+        }
+        return null;
+    }
+
+    int currentLine() {
+        return line;
+    }
+
+    static UserImportReader ndjson(BufferedReader reader, ObjectMapper objectMapper) {
+        return new UserImportReader(reader) {
+            @Override
+            Row next() throws IOException {
+                String text = nextLine();
+                if (text == null) {
+                    return null;
+                }
+                try {
+                    return new Row(currentLine(), objectMapper.readValue(text, SignupRequest.class), null);
+                } catch (JsonProcessingException e) {
+                    return new Row(currentLine(), null, "Malformed JSON");
+                }
+            }
+        };
+    }
+
+    static UserImportReader csv(BufferedReader reader) {
+        return new UserImportReader(reader) {
+            private Map<String, Integer> columns;
+
+            @Override
+            Row next() throws IOException {
+                if (columns == null) {
+                    String header = nextLine();
+                    if (header == null) {
+                        return null;
+                    }
+                    columns = readHeader(header);
+                }
+
+                String text = nextLine();
+                if (text == null) {
+                    return null;
+                }
+                List<String> values = splitCsv(text);
+                if (values.size() != columns.size()) {
+                    return new Row(currentLine(), null,
+                            "Expected " + columns.size() + " columns but found " + values.size());
+                }
+
+                SignupRequest request = new SignupRequest();
+                request.setEmail(values.get(columns.get("email")).trim());
+                request.setFirstName(values.get(columns.get("firstName")).trim());
+                request.setLastName(values.get(columns.get("lastName")).trim());
+                request.setPassword(values.get(columns.get("password")));
+                return new Row(currentLine(), request, null);
+            }
+        };
+    }
+
+    private static Map<String, Integer> readHeader(String header) {
+        List<String> names = splitCsv(header);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim(), i);
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new BadRequestException();
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Splits one CSV record, honouring double-quoted fields and doubled quotes inside them.
+     */
+    static List<String> splitCsv(String text) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+}
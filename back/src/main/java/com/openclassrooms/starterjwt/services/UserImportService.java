@@ -0,0 +1,240 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.payload.request.SignupRequest;
+import com.openclassrooms.starterjwt.payload.response.UserImportResponse;
+import com.openclassrooms.starterjwt.payload.response.UserImportResponse.RowResult;
+import com.openclassrooms.starterjwt.payload.response.UserImportResponse.Status;
+import com.openclassrooms.starterjwt.repository.StoredPassword;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.PasswordHashingExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Creates accounts in bulk from a CSV or NDJSON body. Rows are processed in batches: one email lookup per batch
+ * to skip hashing taken emails, BCrypt hashing as bulk work on the shared {@link PasswordHashingExecutor}, and
+ * one JDBC batch insert in its own transaction. The unique email index has the last word: a row is reported
+ * created only when its insert was not ignored.
+ */
+@Service
+public class UserImportService {
+    private static final Logger logger = LoggerFactory.getLogger(UserImportService.class);
+
+    private static final String INSERT_USER = "INSERT IGNORE INTO USERS (email, last_name, first_name, password, admin, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, false, ?, ?)";
+
+    private final UserRepository userRepository;
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final PasswordHashingExecutor passwordHashingExecutor;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Validator validator;
+
+    private final ObjectMapper objectMapper;
+
+    private final int batchSize;
+
+    public UserImportService(UserRepository userRepository,
+                             PasswordEncoder passwordEncoder,
+                             PasswordHashingExecutor passwordHashingExecutor,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             Validator validator,
+                             ObjectMapper objectMapper,
+                             @Value("${oc.app.userImportBatchSize}") int batchSize) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    public UserImportResponse importCsv(InputStream body) throws IOException {
+        return importRows(UserImportReader.csv(reader(body)));
+    }
+
+    public UserImportResponse importNdjson(InputStream body) throws IOException {
+        return importRows(UserImportReader.ndjson(reader(body), objectMapper));
+    }
+
+    private UserImportResponse importRows(UserImportReader reader) throws IOException {
+        UserImportResponse response = new UserImportResponse();
+        Set<String> seenEmails = new HashSet<>();
+        List<UserImportReader.Row> batch = new ArrayList<>(batchSize);
+
+        UserImportReader.Row row;
+        while ((row = reader.next()) != null) {
+            batch.add(row);
+            if (batch.size() == batchSize) {
+                importBatch(batch, seenEmails, response);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            importBatch(batch, seenEmails, response);
+        }
+        return response;
+    }
+
+    private void importBatch(List<UserImportReader.Row> batch, Set<String> seenEmails, UserImportResponse response) {
+        RowResult[] results = new RowResult[batch.size()];
+        List<Integer> candidates = new ArrayList<>(batch.size());
+
+        for (int i = 0; i < batch.size(); i++) {
+            UserImportReader.Row row = batch.get(i);
+            String error = row.error != null ? row.error : validate(row.request);
+            if (error != null) {
+                results[i] = new RowResult(row.line, row.request == null ? null : row.request.getEmail(), Status.INVALID, error);
+            } else if (!seenEmails.add(normalize(row.request.getEmail()))) {
+                results[i] = new RowResult(row.line, row.request.getEmail(), Status.DUPLICATE, "Email appears earlier in the import");
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        if (!candidates.isEmpty()) {
+            Set<String> existing = userRepository.findEmailsIn(candidates.stream()
+                            .map(i -> batch.get(i).request.getEmail())
+                            .collect(Collectors.toList()))
+                    .stream()
+                    .map(UserImportService::normalize)
+                    .collect(Collectors.toSet());
+
+            List<Integer> toInsert = new ArrayList<>(candidates.size());
+            for (int i : candidates) {
+                UserImportReader.Row row = batch.get(i);
+                if (existing.contains(normalize(row.request.getEmail()))) {
+                    results[i] = new RowResult(row.line, row.request.getEmail(), Status.DUPLICATE, "Email is already taken");
+                } else {
+                    toInsert.add(i);
+                }
+            }
+            insert(batch, toInsert, results);
+        }
+
+        for (RowResult result : results) {
+            response.add(result);
+        }
+    }
+
+    private void insert(List<UserImportReader.Row> batch, List<Integer> indexes, RowResult[] results) {
+        if (indexes.isEmpty()) {
+            return;
+        }
+
+        List<CompletableFuture<String>> hashes = indexes.stream()
+                .map(i -> passwordHashingExecutor.submitBulk(() -> passwordEncoder.encode(batch.get(i).request.getPassword())))
+                .collect(Collectors.toList());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> rows = new ArrayList<>(indexes.size());
+        for (int k = 0; k < indexes.size(); k++) {
+            SignupRequest request = batch.get(indexes.get(k)).request;
+            rows.add(new Object[] {request.getEmail(), request.getLastName(), request.getFirstName(),
+                    hashes.get(k).join(), now, now});
+        }
+
+        boolean[] created;
+        try {
+            created = transactionTemplate.execute(status -> insertRows(rows));
+        } catch (DataAccessException e) {
+            logger.warn("User import batch of {} rows failed", rows.size(), e);
+            for (int i : indexes) {
+                UserImportReader.Row row = batch.get(i);
+                results[i] = new RowResult(row.line, row.request.getEmail(), Status.FAILED, "Insert failed");
+            }
+            return;
+        }
+
+        for (int k = 0; k < indexes.size(); k++) {
+            UserImportReader.Row row = batch.get(indexes.get(k));
+            results[indexes.get(k)] = created[k]
+                    ? new RowResult(row.line, row.request.getEmail(), Status.CREATED, null)
+                    : new RowResult(row.line, row.request.getEmail(), Status.DUPLICATE, "Email is already taken");
+        }
+    }
+
+    /**
+     * Inserts the rows and tells which ones were not ignored as duplicates. When the driver rewrote the batch and
+     * reports no per-row count, the stored hashes are read back: each hash has its own salt, so a row was
+     * inserted exactly when its hash is the stored one.
+     */
+    private boolean[] insertRows(List<Object[]> rows) {
+        int[] counts = jdbcTemplate.batchUpdate(INSERT_USER, rows);
+        boolean[] created = new boolean[rows.size()];
+        List<String> unknown = new ArrayList<>();
+        for (int k = 0; k < rows.size(); k++) {
+            if (counts[k] == Statement.SUCCESS_NO_INFO) {
+                unknown.add((String) rows.get(k)[0]);
+            } else {
+                created[k] = counts[k] > 0;
+            }
+        }
+        if (unknown.isEmpty()) {
+            return created;
+        }
+
+        Map<String, String> storedHashes = userRepository.findPasswordsByEmailIn(unknown).stream()
+                .collect(Collectors.toMap(stored -> normalize(stored.getEmail()), StoredPassword::getPassword));
+        for (int k = 0; k < rows.size(); k++) {
+            if (counts[k] == Statement.SUCCESS_NO_INFO) {
+                created[k] = rows.get(k)[3].equals(storedHashes.get(normalize((String) rows.get(k)[0])));
+            }
+        }
+        return created;
+    }
+
+    private String validate(SignupRequest request) {
+        Set<ConstraintViolation<SignupRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    private static BufferedReader reader(InputStream body) {
+        return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+}
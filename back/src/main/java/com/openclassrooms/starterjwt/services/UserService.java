@@ -2,21 +2,49 @@ package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.jwt.TokenRevocationStore;
+import com.openclassrooms.starterjwt.security.jwt.VerifiedTokenCache;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.List;
+
 @Service
 public class UserService {
     private final UserRepository userRepository;
 
-    public UserService(UserRepository userRepository) {
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    private final UserDetailsCache userDetailsCache;
+
+    private final TokenRevocationStore tokenRevocationStore;
+
+    public UserService(UserRepository userRepository,
+                       VerifiedTokenCache verifiedTokenCache,
+                       UserDetailsCache userDetailsCache,
+                       TokenRevocationStore tokenRevocationStore) {
         this.userRepository = userRepository;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.userDetailsCache = userDetailsCache;
+        this.tokenRevocationStore = tokenRevocationStore;
     }
 
     public void delete(Long id) {
         this.userRepository.deleteById(id);
+        this.tokenRevocationStore.revokeUser(id);
+        this.verifiedTokenCache.invalidateUser(id);
+        this.userDetailsCache.invalidateUser(id);
     }
 
     public User findById(Long id) {
         return this.userRepository.findById(id).orElse(null);
     }
+
+    /**
+     * Loads the users with a single {@code IN} query. Unknown ids are left out of the result.
+     */
+    public List<User> findAllById(Collection<Long> ids) {
+        return this.userRepository.findAllById(ids);
+    }
 }
@@ -0,0 +1,80 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Promotes waitlisted users on a single background thread, so withdrawing from a session does not wait for
+ * the waitlist to move. Requests for a session already queued are merged, and each batch runs in its own
+ * transaction. A periodic sweep picks up sessions whose promotion was lost, e.g. on a restart.
+ */
+@Component
+public class WaitlistPromoter {
+    private static final Logger logger = LoggerFactory.getLogger(WaitlistPromoter.class);
+
+    private final SessionService sessionService;
+
+    private final WaitlistRepository waitlistRepository;
+
+    private final int batchSize;
+
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "waitlist-promoter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public WaitlistPromoter(SessionService sessionService,
+                            WaitlistRepository waitlistRepository,
+                            @Value("${oc.app.waitlistPromotionBatchSize}") int batchSize) {
+        this.sessionService = sessionService;
+        this.waitlistRepository = waitlistRepository;
+        this.batchSize = batchSize;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSeatReleased(SeatReleasedEvent event) {
+        schedule(event.getSessionId());
+    }
+
+    public void schedule(Long sessionId) {
+        if (pending.add(sessionId)) {
+            executor.execute(() -> promote(sessionId));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${oc.app.waitlistSweepIntervalMs}", initialDelayString = "${oc.app.waitlistSweepIntervalMs}")
+    public void sweep() {
+        waitlistRepository.findPromotableSessionIds().forEach(this::schedule);
+    }
+
+    void promote(Long sessionId) {
+        // Cleared first, so seats released while this run is going trigger another one
+        pending.remove(sessionId);
+        try {
+            while (sessionService.promoteWaitlisted(sessionId, batchSize)) {
+                logger.debug("Promoted a batch of {} from the waitlist of session {}", batchSize, sessionId);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Waitlist promotion of session {} failed, the next sweep will retry: {}", sessionId, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -1,5 +1,6 @@
 package com.openclassrooms.starterjwt.controllers;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.payload.request.LoginRequest;
@@ -14,12 +15,19 @@ import org.springframework.http.MediaType;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 
 import static com.openclassrooms.starterjwt.testUtils.TestConstants.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -52,10 +60,18 @@ public class AuthControllerIT {
         objectMapper = new ObjectMapper();
     }
 
+    private ResultActions performAsync(RequestBuilder requestBuilder) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(requestBuilder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        return mockMvc.perform(asyncDispatch(mvcResult));
+    }
+
     @Test
     @DisplayName("Register User - Email Already Taken")
     public void shouldNotRegisterUser_EmailAlreadyTaken() throws Exception {
-        mockMvc.perform(post("/api/auth/register")
+        performAsync(post("/api/auth/register")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(signupRequest)))
                 .andExpect(status().isOk());
@@ -66,7 +82,7 @@ public class AuthControllerIT {
         anotherSignupRequest.setLastName("anotherLastName");
         anotherSignupRequest.setPassword("anotherPassword");
 
-        mockMvc.perform(post("/api/auth/register")
+        performAsync(post("/api/auth/register")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(anotherSignupRequest)))
                 .andExpect(status().isBadRequest())
@@ -80,7 +96,7 @@ public class AuthControllerIT {
         wrongLoginRequest.setEmail(signupRequest.getEmail());
         wrongLoginRequest.setPassword("wrong-password");
 
-        mockMvc.perform(post("/api/auth/login")
+        performAsync(post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(wrongLoginRequest)))
                 .andExpect(status().isUnauthorized());
@@ -99,7 +115,7 @@ public class AuthControllerIT {
 
         String userJson = objectMapper.writeValueAsString(user);
 
-        mockMvc.perform(post("/api/auth/register")
+        performAsync(post("/api/auth/register")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(userJson))
                 .andExpect(status().isOk());
@@ -111,7 +127,7 @@ public class AuthControllerIT {
 
         assertEquals(1, count);
 
-        mockMvc.perform(post("/api/auth/login")
+        performAsync(post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(loginRequest)))
                 .andExpect(status().isOk());
@@ -119,4 +135,121 @@ public class AuthControllerIT {
         String userString = user.toString();
         assertNotNull(userString);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Logout - Token is rejected afterwards")
+    public void shouldRejectTokenAfterLogout() throws Exception {
+        performAsync(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(signupRequest)))
+                .andExpect(status().isOk());
+
+        String loginResponse = performAsync(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode jwtResponse = objectMapper.readTree(loginResponse);
+        String authorization = "Bearer " + jwtResponse.get("token").asText();
+        String userPath = "/api/user/" + jwtResponse.get("id").asLong();
+
+        mockMvc.perform(get(userPath).header("Authorization", authorization))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/auth/logout").header("Authorization", authorization))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(userPath).header("Authorization", authorization))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("Login - Too Many Requests after repeated failures")
+    public void shouldThrottleRepeatedFailedLogins() throws Exception {
+        loginRequest.setEmail("throttled@studio.com");
+        loginRequest.setPassword("wrongPassword");
+        String body = objectMapper.writeValueAsString(loginRequest);
+
+        for (int i = 0; i < 5; i++) {
+            performAsync(post("/api/auth/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+    }
+
+    @Test
+    @DisplayName("Refresh - Rotated refresh token cannot be reused")
+    public void shouldRotateRefreshToken() throws Exception {
+        loginRequest.setEmail("refresh@studio.com");
+        signupRequest.setEmail("refresh@studio.com");
+        performAsync(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(signupRequest)))
+                .andExpect(status().isOk());
+
+        String loginResponse = performAsync(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String refreshBody = objectMapper.createObjectNode()
+                .put("refreshToken", objectMapper.readTree(loginResponse).get("refreshToken").asText())
+                .toString();
+
+        String refreshResponse = mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(refreshBody))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("refresh@studio.com"))
+                .andReturn().getResponse().getContentAsString();
+        JsonNode jwtResponse = objectMapper.readTree(refreshResponse);
+
+        mockMvc.perform(get("/api/user/" + jwtResponse.get("id").asLong())
+                        .header("Authorization", "Bearer " + jwtResponse.get("token").asText()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(refreshBody))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("Logout - Refresh token is rejected afterwards")
+    public void shouldRejectRefreshTokenAfterLogout() throws Exception {
+        loginRequest.setEmail("logout@studio.com");
+        signupRequest.setEmail("logout@studio.com");
+        performAsync(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(signupRequest)))
+                .andExpect(status().isOk());
+
+        String loginResponse = performAsync(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode jwtResponse = objectMapper.readTree(loginResponse);
+        String refreshBody = objectMapper.createObjectNode()
+                .put("refreshToken", jwtResponse.get("refreshToken").asText())
+                .toString();
+
+        mockMvc.perform(post("/api/auth/logout")
+                        .header("Authorization", "Bearer " + jwtResponse.get("token").asText())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(refreshBody))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(refreshBody))
+                .andExpect(status().isUnauthorized());
+    }
+}
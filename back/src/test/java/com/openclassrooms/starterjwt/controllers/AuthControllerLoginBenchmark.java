@@ -0,0 +1,91 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.payload.request.LoginRequest;
+import com.openclassrooms.starterjwt.payload.request.SignupRequest;
+import com.openclassrooms.starterjwt.testUtils.MicroBenchmark;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static com.openclassrooms.starterjwt.testUtils.TestConstants.*;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * End-to-end login latency against the MySQL test database, with the BCrypt verification cost measured on its own.
+ * The UserDetails cache is disabled so every login pays for its single USERS lookup.
+ * Run with {@code mvn test -Dtest=AuthControllerLoginBenchmark}.
+ */
+@SpringBootTest(properties = "oc.app.userDetailsCacheEnabled=false")
+@AutoConfigureMockMvc
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = TEST_SCRIPT)
+public class AuthControllerLoginBenchmark {
+
+    private static final int WARMUP = 50;
+    private static final int MEASURED = 500;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void loginLatency() throws Exception {
+        SignupRequest signupRequest = new SignupRequest();
+        signupRequest.setEmail(TEST_USER_EMAIL);
+        signupRequest.setFirstName(TEST_USER_FIRST_NAME);
+        signupRequest.setLastName(TEST_USER_LAST_NAME);
+        signupRequest.setPassword(TEST_USER_PASSWORD);
+        performAsync(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(signupRequest)))
+                .andExpect(status().isOk());
+
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail(TEST_USER_EMAIL);
+        loginRequest.setPassword(TEST_USER_PASSWORD);
+        String loginJson = objectMapper.writeValueAsString(loginRequest);
+
+        String storedHash = jdbcTemplate.queryForObject(
+                "SELECT password FROM USERS WHERE email = ?", String.class, TEST_USER_EMAIL);
+
+        MicroBenchmark.Latencies login = MicroBenchmark.latencies("POST /api/auth/login", WARMUP, MEASURED,
+                () -> performAsync(post("/api/auth/login")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(loginJson))
+                        .andExpect(status().isOk()));
+        MicroBenchmark.Latencies bcrypt = MicroBenchmark.latencies("BCrypt matches", WARMUP, MEASURED,
+                () -> assertTrue(passwordEncoder.matches(TEST_USER_PASSWORD, storedHash)));
+
+        System.out.printf("login without BCrypt: p50 %.2f ms, p99 %.2f ms%n",
+                login.percentileMillis(50) - bcrypt.percentileMillis(50),
+                login.percentileMillis(99) - bcrypt.percentileMillis(99));
+    }
+
+    private ResultActions performAsync(RequestBuilder requestBuilder) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(requestBuilder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        return mockMvc.perform(asyncDispatch(mvcResult));
+    }
+}
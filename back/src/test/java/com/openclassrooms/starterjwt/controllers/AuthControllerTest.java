@@ -1,13 +1,24 @@
 package com.openclassrooms.starterjwt.controllers;
 import static com.openclassrooms.starterjwt.testUtils.TestConstants.*;
 
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+import com.openclassrooms.starterjwt.exception.TooManyRequestsException;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.payload.request.LoginRequest;
 import com.openclassrooms.starterjwt.payload.request.SignupRequest;
+import com.openclassrooms.starterjwt.payload.request.TokenRefreshRequest;
 import com.openclassrooms.starterjwt.payload.response.JwtResponse;
 import com.openclassrooms.starterjwt.payload.response.MessageResponse;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.jwt.JwtClaims;
 import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.jwt.JwtVerification;
+import com.openclassrooms.starterjwt.security.jwt.TokenRevocationStore;
+import com.openclassrooms.starterjwt.security.jwt.VerifiedTokenCache;
+import com.openclassrooms.starterjwt.security.services.LoginThrottle;
+import com.openclassrooms.starterjwt.security.services.PasswordHashingExecutor;
+import com.openclassrooms.starterjwt.security.services.RefreshTokenService;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -17,14 +28,24 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.Collections;
+import java.util.Date;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -44,10 +65,25 @@ class AuthControllerTest {
     @Mock
     private UserRepository userRepository;
     @Mock
+    private UserDetailsCache userDetailsCache;
+    @Mock
+    private PasswordHashingExecutor passwordHashingExecutor;
+    @Mock
+    private TokenRevocationStore tokenRevocationStore;
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+    @Mock
+    private LoginThrottle loginThrottle;
+    @Mock
+    private RefreshTokenService refreshTokenService;
+    @Mock
+    private Executor taskExecutor;
+    @Mock
     private Authentication auth;
     private LoginRequest loginRequest;
     private SignupRequest signUpRequest;
     private UserDetailsImpl userDetails;
+    private final MockHttpServletRequest httpRequest = new MockHttpServletRequest();
 
     @BeforeEach
     public void setup() {
@@ -61,6 +97,13 @@ class AuthControllerTest {
         signUpRequest.setLastName(TEST_USER_LAST_NAME);
         signUpRequest.setPassword(TEST_USER_PASSWORD);
 
+        lenient().when(passwordHashingExecutor.submit(any())).thenAnswer(invocation ->
+                CompletableFuture.supplyAsync(invocation.<Supplier<?>>getArgument(0), Runnable::run));
+        lenient().doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(taskExecutor).execute(any());
+
         userDetails = new UserDetailsImpl(1L, TEST_USER_EMAIL, TEST_USER_FIRST_NAME, TEST_USER_LAST_NAME, true, TEST_USER_PASSWORD);
     }
 
@@ -68,14 +111,13 @@ class AuthControllerTest {
     @DisplayName("Authenticate User - Success")
     public void shouldAuthenticateUserAndReturnJwtResponse() {
         // Arrange
-        User user = new User(TEST_USER_EMAIL, TEST_USER_LAST_NAME, TEST_USER_FIRST_NAME, TEST_USER_PASSWORD, true);
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class))).thenReturn(auth);
-        when(jwtUtils.generateJwtToken(auth)).thenReturn(TEST_JWT_TOKEN);
+        when(jwtUtils.generateJwtToken(userDetails)).thenReturn(TEST_JWT_TOKEN);
         when(auth.getPrincipal()).thenReturn(userDetails);
+        when(refreshTokenService.issue(1L)).thenReturn("refresh-token");
 
         // Act
-        ResponseEntity<?> response = authController.authenticateUser(loginRequest);
+        ResponseEntity<?> response = authController.authenticateUser(loginRequest, httpRequest).join();
 
         // Assert
         assertInstanceOf(JwtResponse.class, response.getBody());
@@ -84,13 +126,74 @@ class AuthControllerTest {
         assertEquals(TEST_USER_FIRST_NAME, jwtResponse.getFirstName());
         assertEquals(TEST_USER_LAST_NAME, jwtResponse.getLastName());
         assertEquals(TEST_JWT_TOKEN, jwtResponse.getToken());
+        assertEquals("refresh-token", jwtResponse.getRefreshToken());
 
-        // Verify isAdmin
-        verify(userRepository).findByEmail(TEST_USER_EMAIL);
-        assertTrue(user.isAdmin());
+        // Admin flag comes from the authenticated principal, without a second lookup
+        assertTrue(jwtResponse.getAdmin());
+        verify(userRepository, never()).findByEmail(anyString());
 
         // Verify interaction with authenticationManager
         verify(authenticationManager).authenticate(new UsernamePasswordAuthenticationToken(TEST_USER_EMAIL, TEST_USER_PASSWORD));
+
+        // A successful login gives its throttle tokens back
+        verify(loginThrottle).acquire(TEST_USER_EMAIL, httpRequest.getRemoteAddr());
+        verify(loginThrottle).refund(TEST_USER_EMAIL, httpRequest.getRemoteAddr());
+    }
+
+    @Test
+    @DisplayName("Authenticate User - Refresh token is issued on the task executor, not on the hashing pool")
+    public void shouldIssueRefreshTokenOffTheHashingPool() {
+        // Arrange
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class))).thenReturn(auth);
+        when(auth.getPrincipal()).thenReturn(userDetails);
+        when(refreshTokenService.issue(1L)).thenReturn("refresh-token");
+        ArgumentCaptor<Runnable> continuation = ArgumentCaptor.forClass(Runnable.class);
+        doNothing().when(taskExecutor).execute(continuation.capture());
+
+        // Act
+        CompletableFuture<ResponseEntity<?>> response = authController.authenticateUser(loginRequest, httpRequest);
+
+        // Assert
+        verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
+        verifyNoInteractions(refreshTokenService);
+        assertFalse(response.isDone());
+
+        continuation.getValue().run();
+        assertEquals(HttpStatus.OK, response.join().getStatusCode());
+        verify(refreshTokenService).issue(1L);
+    }
+
+    @Test
+    @DisplayName("Authenticate User - Throttled before any hashing")
+    public void shouldRejectThrottledLoginBeforeHashing() {
+        // Arrange
+        doThrow(new TooManyRequestsException(30)).when(loginThrottle).acquire(TEST_USER_EMAIL, httpRequest.getRemoteAddr());
+
+        // Act & Assert
+        assertThrows(TooManyRequestsException.class, () -> authController.authenticateUser(loginRequest, httpRequest));
+        verifyNoInteractions(passwordHashingExecutor, authenticationManager);
+    }
+
+    @Test
+    @DisplayName("Authenticate User - Rejected by the hashing pool gives the throttle tokens back")
+    public void shouldRefundThrottleWhenHashingPoolIsFull() {
+        // Arrange
+        doThrow(new ServiceUnavailableException(2)).when(passwordHashingExecutor).submit(any());
+
+        // Act & Assert
+        assertThrows(ServiceUnavailableException.class, () -> authController.authenticateUser(loginRequest, httpRequest));
+        verify(loginThrottle).refund(TEST_USER_EMAIL, httpRequest.getRemoteAddr());
+    }
+
+    @Test
+    @DisplayName("Login throttled - Too Many Requests with Retry-After")
+    public void shouldReturnTooManyRequestsWhenThrottled() {
+        // Act
+        ResponseEntity<MessageResponse> response = authController.handleTooManyRequests(new TooManyRequestsException(30));
+
+        // Assert
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("30", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
     }
 
     @Test
@@ -101,7 +204,7 @@ class AuthControllerTest {
         when(passwordEncoder.encode(anyString())).thenReturn(TEST_USER_ENCODED_PASSWORD);
 
         // Act
-        ResponseEntity<?> response = authController.registerUser(signUpRequest);
+        ResponseEntity<?> response = authController.registerUser(signUpRequest).join();
 
         // Assert
         ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
@@ -111,6 +214,7 @@ class AuthControllerTest {
         assertEquals(TEST_USER_FIRST_NAME, savedUser.getFirstName());
         assertEquals(TEST_USER_LAST_NAME, savedUser.getLastName());
         assertEquals(TEST_USER_ENCODED_PASSWORD, savedUser.getPassword());
+        verify(userDetailsCache).invalidate(TEST_USER_EMAIL);
         assertNotNull(response.getBody());
         assertInstanceOf(MessageResponse.class, response.getBody());
         assertEquals("User registered successfully!", ((MessageResponse) response.getBody()).getMessage());
@@ -123,11 +227,161 @@ class AuthControllerTest {
         when(userRepository.existsByEmail(anyString())).thenReturn(true);
 
         // Act
-        ResponseEntity<?> response = authController.registerUser(signUpRequest);
+        ResponseEntity<?> response = authController.registerUser(signUpRequest).join();
 
         // Assert
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertInstanceOf(MessageResponse.class, response.getBody());
         assertEquals("Error: Email is already taken!", ((MessageResponse) response.getBody()).getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Register User - Failure (Email Taken Concurrently)")
+    public void shouldReturnBadRequestWhenEmailIsTakenDuringRegistration() {
+        // Arrange
+        when(userRepository.existsByEmail(anyString())).thenReturn(false);
+        when(passwordEncoder.encode(anyString())).thenReturn(TEST_USER_ENCODED_PASSWORD);
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("UK_USERS_EMAIL"));
+
+        // Act
+        ResponseEntity<?> response = authController.registerUser(signUpRequest).join();
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Error: Email is already taken!", ((MessageResponse) response.getBody()).getMessage());
+        verifyNoInteractions(userDetailsCache);
+    }
+
+    @Test
+    @DisplayName("Authenticate User - Failure (Bad Credentials)")
+    public void shouldCompleteExceptionallyWhenCredentialsAreWrong() {
+        // Arrange
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenThrow(new BadCredentialsException("Bad credentials"));
+
+        // Act
+        CompletableFuture<ResponseEntity<?>> response = authController.authenticateUser(loginRequest, httpRequest);
+
+        // Assert
+        CompletionException exception = assertThrows(CompletionException.class, response::join);
+        assertInstanceOf(BadCredentialsException.class, exception.getCause());
+        verify(jwtUtils, never()).generateJwtToken(any(UserDetailsImpl.class));
+        verifyNoInteractions(refreshTokenService);
+        verify(loginThrottle, never()).refund(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Hashing pool saturated - Service Unavailable with Retry-After")
+    public void shouldReturnServiceUnavailableWhenHashingPoolIsFull() {
+        // Act
+        ResponseEntity<MessageResponse> response = authController.handleServiceUnavailable(new ServiceUnavailableException(2));
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("2", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    @DisplayName("Logout - Revokes the token and evicts it from the verified token cache")
+    void shouldRevokeTokenOnLogout() {
+        // Arrange
+        Date expiration = new Date(System.currentTimeMillis() + 60000);
+        JwtClaims claims = new JwtClaims(TEST_USER_EMAIL, "token-id", expiration, new Date(), Collections.emptyMap());
+        when(jwtUtils.verify(TEST_JWT_TOKEN)).thenReturn(JwtVerification.valid(claims));
+
+        // Act
+        ResponseEntity<?> response = authController.logout("Bearer " + TEST_JWT_TOKEN, null);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(tokenRevocationStore).revokeToken("token-id", expiration);
+        verify(verifiedTokenCache).invalidate(TEST_JWT_TOKEN);
+        verifyNoInteractions(refreshTokenService);
+    }
+
+    @Test
+    @DisplayName("Logout - Revokes the refresh token sent in the body")
+    void shouldRevokeRefreshTokenOnLogout() {
+        // Arrange
+        JwtClaims claims = new JwtClaims(TEST_USER_EMAIL, "token-id", new Date(System.currentTimeMillis() + 60000),
+                new Date(), Collections.emptyMap());
+        when(jwtUtils.verify(TEST_JWT_TOKEN)).thenReturn(JwtVerification.valid(claims));
+        TokenRefreshRequest refreshRequest = new TokenRefreshRequest();
+        refreshRequest.setRefreshToken("refresh-token");
+
+        // Act
+        ResponseEntity<?> response = authController.logout("Bearer " + TEST_JWT_TOKEN, refreshRequest);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(refreshTokenService).revoke("refresh-token");
+    }
+
+    @Test
+    @DisplayName("Logout - Unauthorized without a valid token")
+    void shouldRejectLogoutWithoutValidToken() {
+        // Arrange
+        when(jwtUtils.verify(TEST_JWT_TOKEN)).thenReturn(JwtVerification.failed(JwtVerification.Failure.EXPIRED));
+
+        // Act
+        ResponseEntity<?> missing = authController.logout(null, null);
+        ResponseEntity<?> invalid = authController.logout("Bearer " + TEST_JWT_TOKEN, null);
+
+        // Assert
+        assertEquals(HttpStatus.UNAUTHORIZED, missing.getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, invalid.getStatusCode());
+        verifyNoInteractions(tokenRevocationStore);
+    }
+
+    @Test
+    @DisplayName("Logout - Bad request for tokens issued without an id")
+    void shouldRejectLogoutOfTokenWithoutId() {
+        // Arrange
+        JwtClaims claims = new JwtClaims(TEST_USER_EMAIL, new Date(System.currentTimeMillis() + 60000), new Date(), Collections.emptyMap());
+        when(jwtUtils.verify(TEST_JWT_TOKEN)).thenReturn(JwtVerification.valid(claims));
+
+        // Act
+        ResponseEntity<?> response = authController.logout("Bearer " + TEST_JWT_TOKEN, null);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(tokenRevocationStore);
+    }
+
+    @Test
+    @DisplayName("Refresh - Issues a new access token and a rotated refresh token")
+    void shouldRefreshTokens() {
+        // Arrange
+        TokenRefreshRequest refreshRequest = new TokenRefreshRequest();
+        refreshRequest.setRefreshToken("refresh-token");
+        when(refreshTokenService.rotate("refresh-token"))
+                .thenReturn(Optional.of(new RefreshTokenService.Rotation(userDetails, "next-refresh-token")));
+        when(jwtUtils.generateJwtToken(userDetails)).thenReturn(TEST_JWT_TOKEN);
+
+        // Act
+        ResponseEntity<?> response = authController.refresh(refreshRequest);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        JwtResponse jwtResponse = (JwtResponse) response.getBody();
+        assertEquals(TEST_JWT_TOKEN, jwtResponse.getToken());
+        assertEquals("next-refresh-token", jwtResponse.getRefreshToken());
+        assertEquals(TEST_USER_EMAIL, jwtResponse.getUsername());
+    }
+
+    @Test
+    @DisplayName("Refresh - Unauthorized for an unknown or already used refresh token")
+    void shouldRejectUnknownRefreshToken() {
+        // Arrange
+        TokenRefreshRequest refreshRequest = new TokenRefreshRequest();
+        refreshRequest.setRefreshToken("refresh-token");
+        when(refreshTokenService.rotate("refresh-token")).thenReturn(Optional.empty());
+
+        // Act
+        ResponseEntity<?> response = authController.refresh(refreshRequest);
+
+        // Assert
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        verifyNoInteractions(jwtUtils);
+    }
+}
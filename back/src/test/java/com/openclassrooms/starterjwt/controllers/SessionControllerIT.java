@@ -10,14 +10,22 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -68,6 +76,12 @@ public class SessionControllerIT {
                 "INSERT INTO SESSIONS (name, description, date, teacher_id) VALUES (?, ?, ?, ?)",
                 TEST_SESSION_NAME, TEST_SESSION_DESCRIPTION, new Timestamp(System.currentTimeMillis()), teacherId
         );
+        addSeatStripe(null, 0);
+    }
+
+    private void addSeatStripe(Integer quota, int taken) {
+        jdbcTemplate.update("INSERT INTO SESSION_SEATS (session_id, stripe, taken, quota) "
+                + "SELECT MAX(id), 0, ?, ? FROM SESSIONS", taken, quota);
     }
 
     @Test
@@ -109,4 +123,256 @@ public class SessionControllerIT {
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(username = TEST_USER_EMAIL)
+    public void shouldDetectParticipationConflictsFromAffectedRows() throws Exception {
+        mockMvc.perform(post("/api/session/1/participate/" + userId))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/session/1/participate/" + userId))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/session/999/participate/" + userId))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/session/1/participate/999"))
+                .andExpect(status().isNotFound());
+
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = 1", Integer.class);
+        assertEquals(1, rows);
+
+        mockMvc.perform(delete("/api/session/1/participate/" + userId))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/session/1/participate/" + userId))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(delete("/api/session/999/participate/" + userId))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(username = TEST_USER_EMAIL)
+    public void shouldReturnParticipantIdsWithSession() throws Exception {
+        mockMvc.perform(post("/api/session/1/participate/" + userId)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/session/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value(TEST_SESSION_NAME))
+                .andExpect(jsonPath("$.teacher_id").value(teacherId))
+                .andExpect(jsonPath("$.users.length()").value(1))
+                .andExpect(jsonPath("$.users[0]").value(userId));
+
+        mockMvc.perform(get("/api/session"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].users[0]").value(userId));
+    }
+
+    @Test
+    @WithMockUser(username = TEST_USER_EMAIL)
+    public void shouldPaginateSessionsByDateThenId() throws Exception {
+        Timestamp sameDate = new Timestamp(System.currentTimeMillis() + 3_600_000L);
+        for (String name : new String[] {"Later 1", "Later 2"}) {
+            jdbcTemplate.update(
+                    "INSERT INTO SESSIONS (name, description, date, teacher_id) VALUES (?, ?, ?, ?)",
+                    name, TEST_SESSION_DESCRIPTION, sameDate, teacherId
+            );
+        }
+
+        String cursor = mockMvc.perform(get("/api/session").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].name").value(TEST_SESSION_NAME))
+                .andExpect(jsonPath("$[1].name").value("Later 1"))
+                .andExpect(header().string("X-Total-Count", "3"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/api/session").param("size", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("Later 2"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+
+        mockMvc.perform(get("/api/session").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = TEST_USER_EMAIL)
+    public void shouldAnswerConditionalGetsUntilSessionsChange() throws Exception {
+        String sessionEtag = mockMvc.perform(get("/api/session/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Last-Modified"))
+                .andReturn().getResponse().getHeader("ETag");
+        String listEtag = mockMvc.perform(get("/api/session"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/session/1").header("If-None-Match", sessionEtag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/session").header("If-None-Match", listEtag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/api/session/1/participate/" + userId))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/session/1").header("If-None-Match", sessionEtag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(1));
+        mockMvc.perform(get("/api/session").header("If-None-Match", listEtag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(username = TEST_ADMIN_EMAIL, roles = {TEST_ADMIN_ROLE})
+    public void shouldChangeListVersionWhenSessionIsDeleted() throws Exception {
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setName(TEST_SESSION_NAME);
+        sessionDto.setTeacher_id(teacherId);
+        sessionDto.setDescription(TEST_SESSION_DESCRIPTION);
+        sessionDto.setDate(new Timestamp(System.currentTimeMillis()));
+        long createdId = objectMapper.readTree(mockMvc.perform(post("/api/session")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sessionDto)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).get("id").asLong();
+
+        MockHttpServletResponse listed = mockMvc.perform(get("/api/session"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Last-Modified"))
+                .andReturn().getResponse();
+        mockMvc.perform(get("/api/session").header("If-Modified-Since", listed.getHeader("Last-Modified")))
+                .andExpect(status().isNotModified());
+
+        // Last-Modified only has a one second resolution.
+        Thread.sleep(1_100);
+        mockMvc.perform(delete("/api/session/" + createdId))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/session").header("If-None-Match", listed.getHeader("ETag")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/session").header("If-Modified-Since", listed.getHeader("Last-Modified")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    @WithMockUser(username = TEST_ADMIN_EMAIL, roles = {TEST_ADMIN_ROLE})
+    public void shouldStreamSameSessionsAsListing() throws Exception {
+        jdbcTemplate.update("INSERT INTO SESSIONS (name, description, date, teacher_id, capacity) VALUES (?, ?, ?, ?, ?)",
+                "Empty", TEST_SESSION_DESCRIPTION, Timestamp.valueOf("2030-01-01 10:00:00"), null, 10);
+        addSeatStripe(10, 0);
+        mockMvc.perform(post("/api/session/1/participate/" + userId))
+                .andExpect(status().isOk());
+
+        String listed = mockMvc.perform(get("/api/session").param("size", "100"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String streamed = mockMvc.perform(get("/api/session/stream"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].users[0]").value(userId))
+                .andExpect(jsonPath("$[1].users.length()").value(0))
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(objectMapper.readTree(listed), objectMapper.readTree(streamed));
+    }
+
+    @Test
+    @WithMockUser(username = TEST_USER_EMAIL)
+    public void shouldNotStreamSessionsToUsers() throws Exception {
+        mockMvc.perform(get("/api/session/stream"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(username = TEST_ADMIN_EMAIL, roles = {TEST_ADMIN_ROLE})
+    public void shouldExportAttendanceFromCursor() throws Exception {
+        jdbcTemplate.update("INSERT INTO SESSIONS (name, description, date, teacher_id) VALUES (?, ?, ?, ?)",
+                "Evening, calm", TEST_SESSION_DESCRIPTION, Timestamp.valueOf("2030-01-01 18:00:00"), null);
+        addSeatStripe(null, 0);
+        mockMvc.perform(post("/api/session/1/participate/" + userId))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/session/2/participate/" + userId))
+                .andExpect(status().isOk());
+
+        String[] lines = mockMvc.perform(get("/api/session/export"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson;charset=UTF-8"))
+                .andReturn().getResponse().getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1, objectMapper.readTree(lines[0]).get("sessionId").asLong());
+        assertEquals(TEST_TEACHER_LAST_NAME, objectMapper.readTree(lines[0]).get("teacherLastName").asText());
+        assertEquals(TEST_USER_EMAIL, objectMapper.readTree(lines[0]).get("participantEmails").get(0).asText());
+
+        byte[] gzipped = mockMvc.perform(get("/api/session/export")
+                        .param("format", "csv")
+                        .param("after", "1")
+                        .header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+        String[] records = gunzip(gzipped).split("\r\n");
+        assertEquals(2, records.length);
+        assertEquals("2,\"Evening, calm\",2030-01-01T18:00:00,,,,\"" + TEST_USER_EMAIL + "\"", records[1]);
+    }
+
+    @Test
+    @WithMockUser(username = TEST_USER_EMAIL)
+    public void shouldNotExportAttendanceToUsers() throws Exception {
+        mockMvc.perform(get("/api/session/export"))
+                .andExpect(status().isForbidden());
+    }
+
+    private static String gunzip(byte[] body) throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    @WithMockUser(username = TEST_USER_EMAIL)
+    public void shouldFilterSessionsByDateTeacherAndFreeSeats() throws Exception {
+        jdbcTemplate.update("INSERT INTO TEACHERS (last_name, first_name) VALUES (?, ?)", "Other", "Teacher");
+        Long otherTeacherId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM TEACHERS", Long.class);
+        String insertSession = "INSERT INTO SESSIONS (name, description, date, teacher_id, capacity) VALUES (?, ?, ?, ?, ?)";
+        jdbcTemplate.update(insertSession, "Past", TEST_SESSION_DESCRIPTION, Timestamp.valueOf("2020-01-01 10:00:00"), teacherId, null);
+        addSeatStripe(null, 0);
+        jdbcTemplate.update(insertSession, "Full", TEST_SESSION_DESCRIPTION, Timestamp.valueOf("2031-01-01 10:00:00"), teacherId, 1);
+        addSeatStripe(1, 1);
+        jdbcTemplate.update(insertSession, "Other", TEST_SESSION_DESCRIPTION, Timestamp.valueOf("2031-02-01 10:00:00"), otherTeacherId, 10);
+        addSeatStripe(10, 0);
+
+        mockMvc.perform(get("/api/session").param("from", "2030-01-01T00:00:00Z"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].name").value("Full"))
+                .andExpect(jsonPath("$[1].name").value("Other"));
+
+        mockMvc.perform(get("/api/session").param("from", "2030-01-01T00:00:00Z").param("hasFreeSeats", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("Other"));
+
+        String cursor = mockMvc.perform(get("/api/session").param("teacher_id", teacherId.toString()).param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "3"))
+                .andExpect(jsonPath("$[0].name").value("Past"))
+                .andExpect(jsonPath("$[1].name").value(TEST_SESSION_NAME))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/api/session").param("teacher_id", teacherId.toString()).param("size", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("Full"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+
+        mockMvc.perform(get("/api/session").param("from", "2031-01-01").param("to", "2030-01-01T00:00:00.000Z"))
+                .andExpect(status().isBadRequest());
+    }
+}
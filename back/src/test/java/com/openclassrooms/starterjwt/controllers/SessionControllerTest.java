@@ -1,11 +1,19 @@
 package com.openclassrooms.starterjwt.controllers;
 
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionSummary;
+import com.openclassrooms.starterjwt.services.AttendanceExportService;
+import com.openclassrooms.starterjwt.services.Enrollment;
+import com.openclassrooms.starterjwt.services.ResourceVersion;
+import com.openclassrooms.starterjwt.services.SessionFilter;
+import com.openclassrooms.starterjwt.services.SessionPage;
 import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.services.SessionStreamService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,11 +22,17 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,6 +49,12 @@ class SessionControllerTest {
     @Mock
     private SessionMapper sessionMapper;
 
+    @Mock
+    private SessionStreamService sessionStreamService;
+
+    @Mock
+    private AttendanceExportService attendanceExportService;
+
     private Session session1;
     private Session session2;
     private SessionDto sessionDto1;
@@ -46,8 +66,19 @@ class SessionControllerTest {
     @Mock
     private User user1, user2, user3, user4;
 
+    @Mock
+    private SessionSummary summary1, summary2;
+
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse servletResponse;
+    private ServletWebRequest webRequest;
+
     @BeforeEach
     void setUp() {
+        request = new MockHttpServletRequest("GET", "/api/session");
+        servletResponse = new MockHttpServletResponse();
+        webRequest = new ServletWebRequest(request, servletResponse);
+
         session1 = Session.builder()
                 .id(1L)
                 .name("Session 1")
@@ -87,29 +118,59 @@ class SessionControllerTest {
     @DisplayName("Find by ID - Success")
     void shouldFindById() {
         // Arrange
-        when(sessionService.getById(1L)).thenReturn(session1);
-        when(sessionMapper.toDto(session1)).thenReturn(sessionDto1);
+        when(summary1.getId()).thenReturn(1L);
+        when(sessionService.getSummaryById(1L)).thenReturn(summary1);
+        when(sessionService.versionOf(summary1)).thenReturn(ResourceVersion.of(null, "session", 1L, 0));
+        when(sessionService.findParticipantIds(Collections.singletonList(1L)))
+                .thenReturn(Collections.singletonMap(1L, Arrays.asList(1L, 2L)));
+        when(sessionMapper.toDto(summary1, Arrays.asList(1L, 2L))).thenReturn(sessionDto1);
 
         // Act
-        ResponseEntity<?> response = sessionController.findById("1");
+        ResponseEntity<?> response = sessionController.findById("1", webRequest);
 
         // Assert
         assertEquals(200, response.getStatusCodeValue());
         assertInstanceOf(SessionDto.class, response.getBody());
         assertEquals(sessionDto1, response.getBody());
-        verify(sessionService, times(1)).getById(1L);
-        verify(sessionMapper, times(1)).toDto(session1);
+        assertEquals("\"session-1-0--1\"", servletResponse.getHeader("ETag"));
+        verify(sessionService, times(1)).getSummaryById(1L);
+        verify(sessionService, never()).getById(any());
+    }
+
+    @Test
+    @DisplayName("Find by ID - Not Modified skips participants and mapping")
+    void shouldAnswerNotModifiedForCurrentEtag() {
+        // Arrange
+        when(sessionService.getSummaryById(1L)).thenReturn(summary1);
+        when(sessionService.versionOf(summary1)).thenReturn(ResourceVersion.of(null, "session", 1L, 0));
+        request.addHeader("If-None-Match", "\"session-1-0--1\"");
+
+        // Act
+        ResponseEntity<?> response = sessionController.findById("1", webRequest);
+
+        // Assert
+        assertNull(response);
+        assertEquals(304, servletResponse.getStatus());
+        verify(sessionService, never()).findParticipantIds(any());
+        verifyNoInteractions(sessionMapper);
     }
 
     @Test
     @DisplayName("Find All - Success")
     void shouldFindAll() {
         // Arrange
-        when(sessionService.findAll()).thenReturn(Arrays.asList(session1, session2));
-        when(sessionMapper.toDto(Arrays.asList(session1, session2))).thenReturn(Arrays.asList(sessionDto1, sessionDto2));
+        when(summary1.getId()).thenReturn(1L);
+        when(summary2.getId()).thenReturn(2L);
+        Map<Long, List<Long>> participantIds = new HashMap<>();
+        participantIds.put(1L, Arrays.asList(1L, 2L));
+        when(sessionService.getListVersion()).thenReturn(ResourceVersion.of(null, "sessions", 2L, 2L, 0L));
+        when(sessionService.findPage(eq(0), isNull(), any(SessionFilter.class)))
+                .thenReturn(new SessionPage(Arrays.asList(summary1, summary2), participantIds, "next", 3L));
+        when(sessionMapper.toDto(summary1, Arrays.asList(1L, 2L))).thenReturn(sessionDto1);
+        when(sessionMapper.toDto(summary2, Collections.emptyList())).thenReturn(sessionDto2);
 
         // Act
-        ResponseEntity<?> response = sessionController.findAll();
+        ResponseEntity<?> response = sessionController.findAll(null, null, null, null, null, null, false, webRequest);
 
         // Assert
         assertEquals(200, response.getStatusCodeValue());
@@ -125,8 +186,56 @@ class SessionControllerTest {
         }
 
         assertEquals(2, sessionDtos.size());
-        verify(sessionService, times(1)).findAll();
-        verify(sessionMapper, times(1)).toDto(Arrays.asList(session1, session2));
+        assertEquals("3", response.getHeaders().getFirst("X-Total-Count"));
+        assertEquals("next", response.getHeaders().getFirst("X-Next-Cursor"));
+        verify(sessionService, times(1)).findPage(eq(0), isNull(), argThat(SessionFilter::isEmpty));
+    }
+
+    @Test
+    @DisplayName("Find All - Keyset window after a cursor")
+    void shouldFindAllAfterCursor() {
+        // Arrange
+        when(summary2.getId()).thenReturn(2L);
+        when(sessionService.getListVersion()).thenReturn(ResourceVersion.of(null, "sessions", 2L, 2L, 0L));
+        when(sessionService.findAfter(eq("cursor"), eq(10), any(SessionFilter.class)))
+                .thenReturn(new SessionPage(Arrays.asList(summary2), Collections.singletonMap(2L, Arrays.asList(3L, 4L)), null, null));
+        when(sessionMapper.toDto(summary2, Arrays.asList(3L, 4L))).thenReturn(sessionDto2);
+
+        // Act
+        ResponseEntity<?> response = sessionController.findAll(null, 10, "cursor", null, null, null, false, webRequest);
+
+        // Assert
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(Arrays.asList(sessionDto2), response.getBody());
+        assertFalse(response.getHeaders().containsKey("X-Total-Count"));
+        assertFalse(response.getHeaders().containsKey("X-Next-Cursor"));
+    }
+
+    @Test
+    @DisplayName("Find All - Bad Request when both a page and a cursor are given")
+    void shouldRejectPageWithCursor() {
+        // Act
+        ResponseEntity<?> response = sessionController.findAll(1, null, "cursor", null, null, null, false, webRequest);
+
+        // Assert
+        assertEquals(400, response.getStatusCodeValue());
+        verifyNoInteractions(sessionService);
+    }
+
+    @Test
+    @DisplayName("Find All - Not Modified skips the page query")
+    void shouldAnswerNotModifiedForCurrentListVersion() {
+        // Arrange
+        when(sessionService.getListVersion()).thenReturn(ResourceVersion.of(null, "sessions", 2L, 2L, 0L));
+        request.addHeader("If-None-Match", "\"sessions-2-2-0--1\"");
+
+        // Act
+        ResponseEntity<?> response = sessionController.findAll(null, null, null, null, null, null, false, webRequest);
+
+        // Assert
+        assertNull(response);
+        assertEquals(304, servletResponse.getStatus());
+        verify(sessionService, never()).findPage(anyInt(), any(), any());
     }
 
     @Test
@@ -151,7 +260,7 @@ class SessionControllerTest {
     @DisplayName("Update - Success")
     void shouldUpdate() {
         // Arrange
-        when(sessionMapper.toEntity(any(SessionDto.class))).thenReturn(session1);
+        when(sessionMapper.toDetails(any(SessionDto.class))).thenReturn(session1);
         when(sessionService.update(anyLong(), any(Session.class))).thenReturn(session1);
         when(sessionMapper.toDto(any(Session.class))).thenReturn(sessionDto1);
 
@@ -190,6 +299,19 @@ class SessionControllerTest {
         verify(sessionService, times(1)).participate(1L, 1L);
     }
 
+    @Test
+    @DisplayName("Participate - Accepted on the waitlist")
+    void shouldAcceptWaitlistedParticipation() {
+        // Arrange
+        when(sessionService.participate(1L, 1L)).thenReturn(Enrollment.WAITLISTED);
+
+        // Act
+        ResponseEntity<?> response = sessionController.participate("1", "1");
+
+        // Assert
+        assertEquals(202, response.getStatusCodeValue());
+    }
+
     @Test
     @DisplayName("No Longer Participate - Success")
     void shouldNoLongerParticipate() {
@@ -207,7 +329,7 @@ class SessionControllerTest {
         // No Arrange needed for this test
 
         // Act
-        ResponseEntity<?> response = sessionController.findById("invalid");
+        ResponseEntity<?> response = sessionController.findById("invalid", webRequest);
 
         // Assert
         assertEquals(400, response.getStatusCodeValue());
@@ -257,10 +379,10 @@ class SessionControllerTest {
     @DisplayName("Find by ID - Not Found")
     void shouldReturnNotFoundForFindById() {
         // Arrange
-        when(sessionService.getById(anyLong())).thenReturn(null);
+        when(sessionService.getSummaryById(anyLong())).thenReturn(null);
 
         // Act
-        ResponseEntity<?> response = sessionController.findById("1");
+        ResponseEntity<?> response = sessionController.findById("1", webRequest);
 
         // Assert
         assertEquals(404, response.getStatusCodeValue());
@@ -278,4 +400,50 @@ class SessionControllerTest {
         // Assert
         assertEquals(404, response.getStatusCodeValue());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Stream - Writes the sessions as JSON onto the response")
+    void shouldStreamSessionsOntoResponse() throws Exception {
+        // Act
+        sessionController.stream(servletResponse);
+
+        // Assert
+        assertEquals("application/json", servletResponse.getContentType());
+        verify(sessionStreamService).writeJsonArray(servletResponse.getOutputStream());
+    }
+
+    @Test
+    @DisplayName("Export - Compresses when the client accepts gzip")
+    void shouldGzipExportWhenAccepted() throws Exception {
+        // Act
+        sessionController.export("csv", 7L, "deflate, gzip;q=0.8", servletResponse);
+
+        // Assert
+        assertEquals("gzip", servletResponse.getHeader("Content-Encoding"));
+        assertTrue(servletResponse.getContentType().startsWith("text/csv"));
+        byte[] body = servletResponse.getContentAsByteArray();
+        assertEquals((byte) 0x1f, body[0]);
+        assertEquals((byte) 0x8b, body[1]);
+        verify(attendanceExportService).exportCsv(any(), eq(7L));
+    }
+
+    @Test
+    @DisplayName("Export - Writes plain NDJSON when gzip is refused")
+    void shouldNotGzipExportWhenRefused() throws Exception {
+        // Act
+        sessionController.export("ndjson", null, "gzip;q=0", servletResponse);
+
+        // Assert
+        assertNull(servletResponse.getHeader("Content-Encoding"));
+        assertTrue(servletResponse.getContentType().startsWith("application/x-ndjson"));
+        verify(attendanceExportService).exportNdjson(servletResponse.getOutputStream(), null);
+    }
+
+    @Test
+    @DisplayName("Export - Bad Request for an unknown format")
+    void shouldRejectUnknownExportFormat() {
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> sessionController.export("xml", null, null, servletResponse));
+        verifyNoInteractions(attendanceExportService);
+    }
+}
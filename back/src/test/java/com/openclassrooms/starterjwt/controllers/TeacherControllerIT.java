@@ -93,4 +93,27 @@ public class TeacherControllerIT {
 
         assertEquals(count, actualTeachers.size());
     }
+
+    @Test
+    @DisplayName("Find teachers - Not Modified until the teachers change")
+    @WithMockUser(username = TEST_ADMIN_EMAIL, roles = TEST_ADMIN_ROLE)
+    void conditionalGets() throws Exception {
+        String listEtag = mockMvc.perform(get("/api/teacher"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        String teacherEtag = mockMvc.perform(get("/api/teacher/1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/teacher").header("If-None-Match", listEtag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/teacher/1").header("If-None-Match", teacherEtag))
+                .andExpect(status().isNotModified());
+
+        jdbcTemplate.update("INSERT INTO TEACHERS (last_name, first_name) VALUES (?, ?)",
+                TEST_TEACHER_LAST_NAME, TEST_TEACHER_FIRST_NAME);
+
+        mockMvc.perform(get("/api/teacher").header("If-None-Match", listEtag))
+                .andExpect(status().isOk());
+    }
 }
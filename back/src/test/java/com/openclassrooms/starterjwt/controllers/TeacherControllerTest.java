@@ -3,6 +3,7 @@ package com.openclassrooms.starterjwt.controllers;
 import com.openclassrooms.starterjwt.dto.TeacherDto;
 import com.openclassrooms.starterjwt.mapper.TeacherMapper;
 import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.services.ResourceVersion;
 import com.openclassrooms.starterjwt.services.TeacherService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -10,6 +11,9 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -35,10 +39,17 @@ class TeacherControllerTest {
     private Teacher teacher2;
     private TeacherDto teacherDto1;
     private TeacherDto teacherDto2;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse servletResponse;
+    private ServletWebRequest webRequest;
 
 
     @BeforeEach
     void setUp() {
+        request = new MockHttpServletRequest("GET", "/api/teacher");
+        servletResponse = new MockHttpServletResponse();
+        webRequest = new ServletWebRequest(request, servletResponse);
+
         teacher1 = new Teacher();
         teacher1.setId(1L);
         teacher2 = new Teacher();
@@ -55,10 +66,11 @@ class TeacherControllerTest {
     void shouldFindById() {
         // Arrange
         when(teacherService.findById(1L)).thenReturn(teacher1);
+        when(teacherService.versionOf(teacher1)).thenReturn(ResourceVersion.of(null, "teacher", 1L));
         when(teacherMapper.toDto(teacher1)).thenReturn(teacherDto1);
 
         // Act
-        ResponseEntity<?> response = teacherController.findById("1");
+        ResponseEntity<?> response = teacherController.findById("1", webRequest);
 
         // Assert
         assertEquals(200, response.getStatusCodeValue());
@@ -68,15 +80,33 @@ class TeacherControllerTest {
         verify(teacherMapper, times(1)).toDto(teacher1);
     }
 
+    @Test
+    @DisplayName("Find by ID - Not Modified skips the mapping")
+    void shouldAnswerNotModifiedForCurrentEtag() {
+        // Arrange
+        when(teacherService.findById(1L)).thenReturn(teacher1);
+        when(teacherService.versionOf(teacher1)).thenReturn(ResourceVersion.of(null, "teacher", 1L));
+        request.addHeader("If-None-Match", "\"teacher-1--1\"");
+
+        // Act
+        ResponseEntity<?> response = teacherController.findById("1", webRequest);
+
+        // Assert
+        assertNull(response);
+        assertEquals(304, servletResponse.getStatus());
+        verifyNoInteractions(teacherMapper);
+    }
+
     @Test
     @DisplayName("Find All - Success")
     void shouldFindAll() {
         // Arrange
         when(teacherService.findAll()).thenReturn(Arrays.asList(teacher1, teacher2));
+        when(teacherService.versionOf(Arrays.asList(teacher1, teacher2))).thenReturn(ResourceVersion.of(null, "teachers", 2, 2L));
         when(teacherMapper.toDto(Arrays.asList(teacher1, teacher2))).thenReturn(Arrays.asList(teacherDto1, teacherDto2));
 
         // Act
-        ResponseEntity<?> response = teacherController.findAll();
+        ResponseEntity<?> response = teacherController.findAll(webRequest);
 
         // Assert
         assertEquals(200, response.getStatusCodeValue());
@@ -100,7 +130,7 @@ class TeacherControllerTest {
     @DisplayName("Find by ID - Bad Request")
     void shouldThrowNumberFormatExceptionForFindById() {
         // Act
-        ResponseEntity<?> response = teacherController.findById("invalid");
+        ResponseEntity<?> response = teacherController.findById("invalid", webRequest);
 
         // Assert
         assertEquals(400, response.getStatusCodeValue());
@@ -113,7 +143,7 @@ class TeacherControllerTest {
         when(teacherService.findById(anyLong())).thenReturn(null);
 
         // Act
-        ResponseEntity<?> response = teacherController.findById("1");
+        ResponseEntity<?> response = teacherController.findById("1", webRequest);
 
         // Assert
         assertEquals(404, response.getStatusCodeValue());
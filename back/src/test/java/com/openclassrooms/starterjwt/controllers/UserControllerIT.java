@@ -15,6 +15,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -121,4 +122,57 @@ public class UserControllerIT {
         Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE id = 1", Integer.class);
         assertEquals(1, count);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Import users from CSV - Success")
+    @WithMockUser(username = TEST_ADMIN_EMAIL, roles = TEST_ADMIN_ROLE)
+    void importCsv() throws Exception {
+        String csv = "email,firstName,lastName,password\n"
+                + "alice@studio.com,Alice,Martin,secret123\n"
+                + TEST_ADMIN_EMAIL + ",Admin,Admin,secret123\n"
+                + "alice@studio.com,Alice,Again,secret123\n"
+                + "not-an-email,Bob,Durand,secret123\n";
+
+        mockMvc.perform(post("/api/user/import")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(4))
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.duplicates").value(2))
+                .andExpect(jsonPath("$.invalid").value(1))
+                .andExpect(jsonPath("$.rows[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.rows[3].line").value(5));
+
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE email = 'alice@studio.com'", Integer.class);
+        assertEquals(1, count);
+    }
+
+    @Test
+    @DisplayName("Import users from NDJSON - Success")
+    @WithMockUser(username = TEST_ADMIN_EMAIL, roles = TEST_ADMIN_ROLE)
+    void importNdjson() throws Exception {
+        String ndjson = "{\"email\":\"carol@studio.com\",\"firstName\":\"Carol\",\"lastName\":\"Petit\",\"password\":\"secret123\"}\n"
+                + "{broken\n";
+
+        mockMvc.perform(post("/api/user/import")
+                        .contentType("application/x-ndjson")
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.invalid").value(1));
+
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE email = 'carol@studio.com'", Integer.class);
+        assertEquals(1, count);
+    }
+
+    @Test
+    @DisplayName("Import users - Forbidden for non admins")
+    @WithMockUser(username = TEST_USER_EMAIL)
+    void import_Forbidden() throws Exception {
+        mockMvc.perform(post("/api/user/import")
+                        .contentType("text/csv")
+                        .content("email,firstName,lastName,password\n"))
+                .andExpect(status().isForbidden());
+    }
+}
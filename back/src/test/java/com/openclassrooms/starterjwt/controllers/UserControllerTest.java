@@ -3,6 +3,8 @@ package com.openclassrooms.starterjwt.controllers;
 import com.openclassrooms.starterjwt.dto.UserDto;
 import com.openclassrooms.starterjwt.mapper.UserMapper;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.response.UserImportResponse;
+import com.openclassrooms.starterjwt.services.UserImportService;
 import com.openclassrooms.starterjwt.services.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -18,6 +20,9 @@ import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.mockito.Mockito.*;
@@ -31,6 +36,8 @@ class UserControllerTest {
     private UserService userService;
     @Mock
     private UserMapper userMapper;
+    @Mock
+    private UserImportService userImportService;
     private User user1;
     private UserDto userDto1;
 
@@ -156,4 +163,41 @@ class UserControllerTest {
             assertEquals(401, response.getStatusCodeValue());
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Import tests")
+    class ImportTests {
+
+        @Test
+        @DisplayName("CSV - Returns the import report")
+        void shouldImportCsv() throws Exception {
+            // Arrange
+            InputStream body = new ByteArrayInputStream(new byte[0]);
+            UserImportResponse report = new UserImportResponse();
+            when(userImportService.importCsv(body)).thenReturn(report);
+
+            // Act
+            ResponseEntity<UserImportResponse> response = userController.importCsv(body);
+
+            // Assert
+            assertEquals(200, response.getStatusCodeValue());
+            assertEquals(report, response.getBody());
+        }
+
+        @Test
+        @DisplayName("NDJSON - Returns the import report")
+        void shouldImportNdjson() throws Exception {
+            // Arrange
+            InputStream body = new ByteArrayInputStream(new byte[0]);
+            UserImportResponse report = new UserImportResponse();
+            when(userImportService.importNdjson(body)).thenReturn(report);
+
+            // Act
+            ResponseEntity<UserImportResponse> response = userController.importNdjson(body);
+
+            // Assert
+            assertEquals(200, response.getStatusCodeValue());
+            assertEquals(report, response.getBody());
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.openclassrooms.starterjwt.mapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.testUtils.SqlStatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static com.openclassrooms.starterjwt.testUtils.TestConstants.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts the statements of a session creation, so resolving participants stays one query whatever their number,
+ * and of a session update, which does not resolve participants at all.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.openclassrooms.starterjwt.testUtils.SqlStatementCounter")
+@AutoConfigureMockMvc
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = TEST_SCRIPT)
+public class SessionMapperIT {
+
+    private static final int PARTICIPANTS = 300;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long teacherId;
+    private final List<Long> userIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO TEACHERS (last_name, first_name) VALUES (?, ?)",
+                TEST_TEACHER_LAST_NAME, TEST_TEACHER_FIRST_NAME);
+        teacherId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM TEACHERS", Long.class);
+
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 0; i < PARTICIPANTS; i++) {
+            users.add(new Object[] {"Mapper", "User" + i, "mapper" + i + "@studio.com", TEST_USER_PASSWORD});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO USERS (last_name, first_name, email, password) VALUES (?, ?, ?, ?)", users);
+        userIds.clear();
+        userIds.addAll(jdbcTemplate.queryForList("SELECT id FROM USERS WHERE email LIKE 'mapper%' ORDER BY id", Long.class));
+    }
+
+    private SessionDto sessionDto(List<Long> participants) {
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setName(TEST_SESSION_NAME);
+        sessionDto.setDescription(TEST_SESSION_DESCRIPTION);
+        sessionDto.setDate(new Date());
+        sessionDto.setTeacher_id(teacherId);
+        sessionDto.setUsers(participants);
+        return sessionDto;
+    }
+
+    private int selectsOfCreate(List<Long> participants) throws Exception {
+        String body = objectMapper.writeValueAsString(sessionDto(participants));
+        SqlStatementCounter.reset();
+        mockMvc.perform(post("/api/session")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk());
+        return SqlStatementCounter.selects();
+    }
+
+    @Test
+    @WithMockUser(username = TEST_ADMIN_EMAIL, roles = {TEST_ADMIN_ROLE})
+    @DisplayName("Create - Reads as many statements for 300 participants as for 3")
+    void shouldNotQueryPerParticipant() throws Exception {
+        int smallCreate = selectsOfCreate(userIds.subList(0, 3));
+        int largeCreate = selectsOfCreate(userIds);
+
+        System.out.printf("Session creation: %d selects with 3 participants, %d selects with %d participants%n",
+                smallCreate, largeCreate, PARTICIPANTS);
+        assertEquals(smallCreate, largeCreate);
+        Long sessionId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM SESSIONS", Long.class);
+        assertEquals(PARTICIPANTS, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = ?", Integer.class, sessionId));
+    }
+
+    private int statementsOfUpdate(Long sessionId, List<Long> participants) throws Exception {
+        String body = objectMapper.writeValueAsString(sessionDto(participants));
+        SqlStatementCounter.reset();
+        mockMvc.perform(put("/api/session/" + sessionId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk());
+        return SqlStatementCounter.statements();
+    }
+
+    @Test
+    @WithMockUser(username = TEST_ADMIN_EMAIL, roles = {TEST_ADMIN_ROLE})
+    @DisplayName("Update - Sends as many statements with 300 participants in the body as with none, and keeps the participants")
+    void shouldNotResolveParticipantsOnUpdate() throws Exception {
+        jdbcTemplate.update("INSERT INTO SESSIONS (name, description, date, teacher_id) VALUES (?, ?, ?, ?)",
+                TEST_SESSION_NAME, TEST_SESSION_DESCRIPTION, new Timestamp(System.currentTimeMillis()), teacherId);
+        Long sessionId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM SESSIONS", Long.class);
+        jdbcTemplate.update("INSERT INTO SESSION_SEATS (session_id, stripe) VALUES (?, 0)", sessionId);
+
+        int emptyUpdate = statementsOfUpdate(sessionId, new ArrayList<>());
+        int largeUpdate = statementsOfUpdate(sessionId, userIds);
+        List<Long> unknownIds = new ArrayList<>(userIds);
+        unknownIds.add(-1L);
+        int unknownUpdate = statementsOfUpdate(sessionId, unknownIds);
+
+        System.out.printf("Session update: %d statements without participants, %d with %d participants%n",
+                emptyUpdate, largeUpdate, PARTICIPANTS);
+        assertEquals(emptyUpdate, largeUpdate);
+        assertEquals(emptyUpdate, unknownUpdate);
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = ?", Integer.class, sessionId));
+    }
+
+    @Test
+    @WithMockUser(username = TEST_ADMIN_EMAIL, roles = {TEST_ADMIN_ROLE})
+    @DisplayName("Create - Unknown participants are reported in one error")
+    void shouldReportUnknownParticipants() throws Exception {
+        mockMvc.perform(post("/api/session")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(sessionDto(Arrays.asList(userIds.get(0), -1L, -2L)))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Error: Unknown user ids [-1, -2]."));
+    }
+}
@@ -0,0 +1,138 @@
+package com.openclassrooms.starterjwt.mapper;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.UnknownReferenceException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import com.openclassrooms.starterjwt.services.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SessionMapperTest {
+
+    private static final Long TEACHER_ID = 1L;
+
+    @InjectMocks
+    private SessionMapperImpl sessionMapper;
+
+    @Mock
+    private TeacherService teacherService;
+
+    @Mock
+    private UserService userService;
+
+    private SessionDto sessionDto;
+    private Teacher teacher;
+
+    @BeforeEach
+    void setUp() {
+        sessionDto = new SessionDto();
+        sessionDto.setName("Yoga");
+        sessionDto.setDescription("Morning session");
+        sessionDto.setTeacher_id(TEACHER_ID);
+        teacher = Teacher.builder().id(TEACHER_ID).build();
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    @Test
+    @DisplayName("toEntity - Resolves all participants with one batch, in request order")
+    void shouldResolveParticipantsInOneBatch() {
+        // Arrange
+        sessionDto.setUsers(Arrays.asList(3L, 1L, 2L, 1L));
+        when(teacherService.findById(TEACHER_ID)).thenReturn(teacher);
+        when(userService.findAllById(new LinkedHashSet<>(Arrays.asList(3L, 1L, 2L))))
+                .thenReturn(Arrays.asList(user(1L), user(2L), user(3L)));
+
+        // Act
+        Session session = sessionMapper.toEntity(sessionDto);
+
+        // Assert
+        assertEquals(teacher, session.getTeacher());
+        assertEquals(Arrays.asList(3L, 1L, 2L), Arrays.asList(
+                session.getUsers().get(0).getId(), session.getUsers().get(1).getId(), session.getUsers().get(2).getId()));
+        verify(userService, times(1)).findAllById(any());
+        verify(userService, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("toEntity - Without participants, no user is looked up")
+    void shouldNotLookUpUsersWithoutParticipants() {
+        // Arrange
+        when(teacherService.findById(TEACHER_ID)).thenReturn(teacher);
+
+        // Act
+        Session session = sessionMapper.toEntity(sessionDto);
+
+        // Assert
+        assertTrue(session.getUsers().isEmpty());
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    @DisplayName("toEntity - Reports every unknown id in one error")
+    void shouldReportUnknownIdsTogether() {
+        // Arrange
+        sessionDto.setUsers(Arrays.asList(1L, 7L, 9L));
+        when(teacherService.findById(TEACHER_ID)).thenReturn(null);
+        when(userService.findAllById(any())).thenReturn(Collections.singletonList(user(1L)));
+
+        // Act
+        UnknownReferenceException e = assertThrows(UnknownReferenceException.class, () -> sessionMapper.toEntity(sessionDto));
+
+        // Assert
+        assertEquals(TEACHER_ID, e.getTeacherId());
+        assertEquals(Arrays.asList(7L, 9L), e.getUserIds());
+        assertEquals("Error: Unknown teacher id 1. Unknown user ids [7, 9].", e.getMessage());
+    }
+
+    @Test
+    @DisplayName("toDetails - Resolves the teacher and ignores the participants")
+    void shouldNotResolveParticipantsForDetails() {
+        // Arrange
+        sessionDto.setUsers(Arrays.asList(1L, 7L, 9L));
+        when(teacherService.findById(TEACHER_ID)).thenReturn(teacher);
+
+        // Act
+        Session session = sessionMapper.toDetails(sessionDto);
+
+        // Assert
+        assertEquals(teacher, session.getTeacher());
+        assertEquals("Yoga", session.getName());
+        assertNull(session.getUsers());
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    @DisplayName("toDetails - Reports an unknown teacher")
+    void shouldReportUnknownTeacherForDetails() {
+        // Arrange
+        when(teacherService.findById(TEACHER_ID)).thenReturn(null);
+
+        // Act
+        UnknownReferenceException e = assertThrows(UnknownReferenceException.class, () -> sessionMapper.toDetails(sessionDto));
+
+        // Assert
+        assertEquals("Error: Unknown teacher id 1.", e.getMessage());
+    }
+}
@@ -14,6 +14,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,6 +26,9 @@ class AuthEntryPointJwtTest {
     @Mock
     private AuthenticationException mockAuthException;
 
+    @Mock
+    private AuthFailureRecorder authFailureRecorder;
+
     @InjectMocks
     private AuthEntryPointJwt authEntryPointJwt;
 
@@ -53,5 +57,6 @@ class AuthEntryPointJwtTest {
         String expectedJson = new ObjectMapper().writeValueAsString(expectedResponseBody);
 
         assertEquals(expectedJson, response.getContentAsString());
+        verify(authFailureRecorder).record(AuthFailureRecorder.UNAUTHORIZED, "/api/test");
     }
 }
\ No newline at end of file
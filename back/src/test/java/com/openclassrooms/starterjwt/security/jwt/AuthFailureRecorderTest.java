@@ -0,0 +1,49 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AuthFailureRecorderTest {
+
+    @Test
+    @DisplayName("record - Counts failures per reason")
+    void shouldCountFailuresPerReason() {
+        // Arrange
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AuthFailureRecorder recorder = new AuthFailureRecorder(meterRegistry, 10_000);
+
+        // Act
+        recorder.record(JwtVerification.Failure.EXPIRED, "expired");
+        recorder.record(JwtVerification.Failure.EXPIRED, "expired");
+        recorder.record(JwtVerification.Failure.BAD_SIGNATURE, "bad signature");
+        recorder.record(AuthFailureRecorder.UNAUTHORIZED, "/api/session");
+
+        // Assert
+        assertEquals(2, recorder.count("expired"));
+        assertEquals(1, recorder.count("bad_signature"));
+        assertEquals(0, recorder.count("malformed"));
+        assertEquals(2, meterRegistry.get("auth.failures").tag("reason", "expired").counter().count());
+        assertEquals(1, meterRegistry.get("auth.failures").tag("reason", "unauthorized").counter().count());
+    }
+
+    @Test
+    @DisplayName("Sampler - Lets one call through per interval and reports the suppressed ones")
+    void shouldSampleOncePerInterval() {
+        // Arrange
+        long interval = TimeUnit.SECONDS.toNanos(10);
+        AuthFailureRecorder.Sampler sampler = new AuthFailureRecorder.Sampler(interval);
+        long start = System.nanoTime();
+
+        // Act & Assert
+        assertEquals(0, sampler.acquire(start));
+        assertEquals(-1, sampler.acquire(start + 1));
+        assertEquals(-1, sampler.acquire(start + interval - 1));
+        assertEquals(2, sampler.acquire(start + interval));
+        assertEquals(-1, sampler.acquire(start + interval + 1));
+    }
+}
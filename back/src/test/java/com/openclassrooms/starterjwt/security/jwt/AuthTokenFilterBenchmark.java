@@ -0,0 +1,118 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
+import com.openclassrooms.starterjwt.testUtils.MicroBenchmark;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static com.openclassrooms.starterjwt.testUtils.TestConstants.*;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the former validate-then-parse filter with the single-pass {@link JwtUtils#verify(String)} one,
+ * without and with the {@link VerifiedTokenCache} in front of it.
+ * Run with {@code mvn test -Dtest=AuthTokenFilterBenchmark}.
+ */
+class AuthTokenFilterBenchmark {
+
+    private static final int WARMUP = 20_000;
+    private static final int MEASURED = 100_000;
+
+    private JwtUtils jwtUtils;
+    private UserDetailsServiceImpl userDetailsService;
+    private MockHttpServletRequest request;
+    private final FilterChain filterChain = (req, res) -> { };
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", TEST_JWT_TOKEN);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 86400000);
+        ReflectionTestUtils.setField(jwtUtils, "jwtKeyRingFile", "");
+        jwtUtils.reloadKeyRing();
+
+        UserDetails userDetails = UserDetailsImpl.builder().id(1L).username(TEST_USER_EMAIL).build();
+        userDetailsService = mock(UserDetailsServiceImpl.class);
+        when(userDetailsService.loadUserByUsername(TEST_USER_EMAIL)).thenReturn(userDetails);
+
+        Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null);
+        request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + jwtUtils.generateJwtToken(authentication));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void filterThroughput() throws Exception {
+        TokenRevocationStore revocationStore = new TokenRevocationStore(1 << 20, 5, 86400000, new SimpleMeterRegistry());
+        AuthFailureRecorder failureRecorder = new AuthFailureRecorder(new SimpleMeterRegistry(), 10_000);
+        AuthTokenFilter filter = new AuthTokenFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "verifiedTokenCache", new VerifiedTokenCache(0, 0, new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(filter, "tokenRevocationStore", revocationStore);
+        ReflectionTestUtils.setField(filter, "authFailureRecorder", failureRecorder);
+        AuthTokenFilter cachingFilter = new AuthTokenFilter();
+        ReflectionTestUtils.setField(cachingFilter, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(cachingFilter, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(cachingFilter, "verifiedTokenCache", new VerifiedTokenCache(10_000, 600_000, new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(cachingFilter, "tokenRevocationStore", revocationStore);
+        ReflectionTestUtils.setField(cachingFilter, "authFailureRecorder", failureRecorder);
+        LegacyAuthTokenFilter legacyFilter = new LegacyAuthTokenFilter(jwtUtils, userDetailsService);
+
+        MicroBenchmark.Result legacy = MicroBenchmark.measure("validateJwtToken + getUserNameFromJwtToken", WARMUP, MEASURED,
+                () -> legacyFilter.doFilterInternal(request, new MockHttpServletResponse(), filterChain));
+        MicroBenchmark.Result singlePass = MicroBenchmark.measure("verify", WARMUP, MEASURED,
+                () -> filter.doFilterInternal(request, new MockHttpServletResponse(), filterChain));
+
+        MicroBenchmark.Result cached = MicroBenchmark.measure("verified token cache hit", WARMUP, MEASURED,
+                () -> cachingFilter.doFilterInternal(request, new MockHttpServletResponse(), filterChain));
+
+        MicroBenchmark.compare(legacy, singlePass);
+        MicroBenchmark.compare(legacy, cached);
+        assertTrue(singlePass.opsPerSecond() > 0);
+    }
+
+    /**
+     * The filter body as it was before single-pass verification, kept here as the benchmark baseline.
+     */
+    private static class LegacyAuthTokenFilter {
+        private final JwtUtils jwtUtils;
+        private final UserDetailsServiceImpl userDetailsService;
+
+        LegacyAuthTokenFilter(JwtUtils jwtUtils, UserDetailsServiceImpl userDetailsService) {
+            this.jwtUtils = jwtUtils;
+            this.userDetailsService = userDetailsService;
+        }
+
+        void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws Exception {
+            String jwt = request.getHeader("Authorization").substring(7);
+            if (jwtUtils.validateJwtToken(jwt)) {
+                String username = jwtUtils.getUserNameFromJwtToken(jwt);
+                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+            }
+            filterChain.doFilter(request, response);
+        }
+    }
+}
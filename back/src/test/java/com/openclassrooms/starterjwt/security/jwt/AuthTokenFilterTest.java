@@ -1,19 +1,30 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 
 import javax.servlet.FilterChain;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,6 +36,15 @@ class AuthTokenFilterTest {
     @Mock
     private UserDetailsServiceImpl userDetailsService;
 
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Mock
+    private TokenRevocationStore tokenRevocationStore;
+
+    @Mock
+    private AuthFailureRecorder authFailureRecorder;
+
     @Mock
     private HttpServletRequest request;
 
@@ -41,17 +61,23 @@ class AuthTokenFilterTest {
     private static final String BEARER_PREFIX = "Bearer ";
     private static final String TEST_JWT = "jwt";
     private static final String TEST_USERNAME = "username";
+    private static final JwtVerification VALID_VERIFICATION = JwtVerification.valid(
+            new JwtClaims(TEST_USERNAME, new Date(), new Date(), Collections.emptyMap()));
 
     @BeforeEach
     void setUp() {
-        when(request.getHeader(AUTHORIZATION_HEADER)).thenReturn(BEARER_PREFIX + TEST_JWT);
+        lenient().when(request.getHeader(AUTHORIZATION_HEADER)).thenReturn(BEARER_PREFIX + TEST_JWT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
     }
 
     @Test
     void shouldDoFilterInternal() throws Exception {
         // Arrange
-        when(jwtUtils.validateJwtToken(TEST_JWT)).thenReturn(true);
-        when(jwtUtils.getUserNameFromJwtToken(TEST_JWT)).thenReturn(TEST_USERNAME);
+        when(jwtUtils.verify(TEST_JWT)).thenReturn(VALID_VERIFICATION);
         UserDetails userDetails = mock(UserDetails.class);
         when(userDetailsService.loadUserByUsername(TEST_USERNAME)).thenReturn(userDetails);
 
@@ -59,24 +85,86 @@ class AuthTokenFilterTest {
         authTokenFilter.doFilterInternal(request, response, filterChain);
 
         // Assert
-        verify(jwtUtils).validateJwtToken(TEST_JWT);
-        verify(jwtUtils).getUserNameFromJwtToken(TEST_JWT);
+        verify(jwtUtils).verify(TEST_JWT);
         verify(userDetailsService).loadUserByUsername(TEST_USERNAME);
+        verify(verifiedTokenCache).put(TEST_JWT, userDetails, VALID_VERIFICATION.getClaims().getExpiration());
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void shouldSkipVerificationAndLookupOnCacheHit() throws Exception {
+        // Arrange
+        UserDetails userDetails = mock(UserDetails.class);
+        when(verifiedTokenCache.get(TEST_JWT)).thenReturn(userDetails);
+
+        // Act
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(jwtUtils, never()).verify(any());
+        verify(userDetailsService, never()).loadUserByUsername(any());
         verify(filterChain).doFilter(request, response);
     }
 
+    @Test
+    void shouldBuildPrincipalFromClaimsWhenTokenIsFresh() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(authTokenFilter, "jwtFreshnessMinutes", 15L);
+        UserDetailsImpl userDetails = UserDetailsImpl.builder().id(1L).username(TEST_USERNAME).admin(false).build();
+        when(jwtUtils.verify(TEST_JWT)).thenReturn(VALID_VERIFICATION);
+        when(jwtUtils.getUserDetailsFromClaims(VALID_VERIFICATION.getClaims())).thenReturn(userDetails);
+
+        // Act
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(userDetailsService, never()).loadUserByUsername(any());
+        verify(verifiedTokenCache).put(TEST_JWT, userDetails, VALID_VERIFICATION.getClaims().getExpiration());
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void shouldReloadPrincipalWhenTokenIsOlderThanFreshnessWindow() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(authTokenFilter, "jwtFreshnessMinutes", 15L);
+        JwtVerification staleVerification = JwtVerification.valid(new JwtClaims(TEST_USERNAME,
+                new Date(System.currentTimeMillis() + 3600000), new Date(System.currentTimeMillis() - 3600000), Collections.emptyMap()));
+        when(jwtUtils.verify(TEST_JWT)).thenReturn(staleVerification);
+        when(userDetailsService.loadUserByUsername(TEST_USERNAME)).thenReturn(mock(UserDetails.class));
+
+        // Act
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(jwtUtils, never()).getUserDetailsFromClaims(any());
+        verify(userDetailsService).loadUserByUsername(TEST_USERNAME);
+    }
+
+    @Test
+    void shouldSkipAuthEndpoints() {
+        // Arrange
+        MockHttpServletRequest loginRequest = new MockHttpServletRequest();
+        loginRequest.setServletPath("/api/auth/login");
+        MockHttpServletRequest sessionRequest = new MockHttpServletRequest();
+        sessionRequest.setServletPath("/api/session");
+
+        // Act & Assert
+        assertTrue(authTokenFilter.shouldNotFilter(loginRequest));
+        assertFalse(authTokenFilter.shouldNotFilter(sessionRequest));
+    }
+
     @Test
     void shouldNotDoFilterInternalWhenJwtIsInvalid() throws Exception {
         // Arrange
         when(request.getHeader(AUTHORIZATION_HEADER)).thenReturn(BEARER_PREFIX + TEST_JWT);
-        when(jwtUtils.validateJwtToken(TEST_JWT)).thenReturn(false);
+        when(jwtUtils.verify(TEST_JWT)).thenReturn(JwtVerification.failed(JwtVerification.Failure.BAD_SIGNATURE, "bad"));
 
         // Act
         authTokenFilter.doFilterInternal(request, response, filterChain);
 
         // Assert
-        verify(jwtUtils).validateJwtToken(TEST_JWT);
-        verify(jwtUtils, never()).getUserNameFromJwtToken(TEST_JWT);
+        verify(jwtUtils).verify(TEST_JWT);
+        verify(authFailureRecorder).record(JwtVerification.Failure.BAD_SIGNATURE, "bad");
         verify(userDetailsService, never()).loadUserByUsername(any());
         verify(filterChain).doFilter(request, response);
     }
@@ -84,16 +172,14 @@ class AuthTokenFilterTest {
     @Test
     void shouldNotDoFilterInternalWhenUserNotFound() throws Exception {
         // Arrange
-        when(jwtUtils.validateJwtToken(TEST_JWT)).thenReturn(true);
-        when(jwtUtils.getUserNameFromJwtToken(TEST_JWT)).thenReturn(TEST_USERNAME);
+        when(jwtUtils.verify(TEST_JWT)).thenReturn(VALID_VERIFICATION);
         when(userDetailsService.loadUserByUsername(TEST_USERNAME)).thenThrow(UsernameNotFoundException.class);
 
         // Act
         authTokenFilter.doFilterInternal(request, response, filterChain);
 
         // Assert
-        verify(jwtUtils).validateJwtToken(TEST_JWT);
-        verify(jwtUtils).getUserNameFromJwtToken(TEST_JWT);
+        verify(jwtUtils).verify(TEST_JWT);
         verify(userDetailsService).loadUserByUsername(TEST_USERNAME);
         verify(filterChain).doFilter(request, response);
     }
@@ -107,8 +193,7 @@ class AuthTokenFilterTest {
         authTokenFilter.doFilterInternal(request, response, filterChain);
 
         // Assert
-        verify(jwtUtils, never()).validateJwtToken(any());
-        verify(jwtUtils, never()).getUserNameFromJwtToken(any());
+        verify(jwtUtils, never()).verify(any());
         verify(userDetailsService, never()).loadUserByUsername(any());
         verify(filterChain).doFilter(request, response);
     }
@@ -122,9 +207,42 @@ class AuthTokenFilterTest {
         authTokenFilter.doFilterInternal(request, response, filterChain);
 
         // Assert
-        verify(jwtUtils, never()).validateJwtToken(any());
-        verify(jwtUtils, never()).getUserNameFromJwtToken(any());
+        verify(jwtUtils, never()).verify(any());
         verify(userDetailsService, never()).loadUserByUsername(any());
         verify(filterChain).doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldRejectRevokedToken() throws Exception {
+        // Arrange
+        when(jwtUtils.verify(TEST_JWT)).thenReturn(VALID_VERIFICATION);
+        UserDetailsImpl userDetails = UserDetailsImpl.builder().id(1L).username(TEST_USERNAME).build();
+        when(userDetailsService.loadUserByUsername(TEST_USERNAME)).thenReturn(userDetails);
+        when(tokenRevocationStore.isRevoked(VALID_VERIFICATION.getClaims(), 1L)).thenReturn(true);
+
+        // Act
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(verifiedTokenCache, never()).put(any(), any(), any());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void shouldEvictTokenRevokedWhileCaching() throws Exception {
+        // Arrange
+        when(jwtUtils.verify(TEST_JWT)).thenReturn(VALID_VERIFICATION);
+        UserDetailsImpl userDetails = UserDetailsImpl.builder().id(1L).username(TEST_USERNAME).build();
+        when(userDetailsService.loadUserByUsername(TEST_USERNAME)).thenReturn(userDetails);
+        when(tokenRevocationStore.isRevoked(VALID_VERIFICATION.getClaims(), 1L)).thenReturn(false, true);
+
+        // Act
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(verifiedTokenCache).put(TEST_JWT, userDetails, VALID_VERIFICATION.getClaims().getExpiration());
+        verify(verifiedTokenCache).invalidate(TEST_JWT);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+}
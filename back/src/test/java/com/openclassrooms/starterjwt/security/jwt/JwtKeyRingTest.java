@@ -0,0 +1,111 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static com.openclassrooms.starterjwt.testUtils.TestConstants.TEST_JWT_TOKEN;
+import static com.openclassrooms.starterjwt.testUtils.TestConstants.TEST_USER_EMAIL;
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtKeyRingTest {
+
+    private static final long RETENTION_MS = 60_000;
+
+    private final JwtKeyRing defaultRing = JwtKeyRing.of(TEST_JWT_TOKEN);
+
+    private static Properties ringFile(String active, String... kidsAndSecrets) {
+        Properties file = new Properties();
+        file.setProperty(JwtKeyRing.ACTIVE_PROPERTY, active);
+        for (int i = 0; i < kidsAndSecrets.length; i += 2) {
+            file.setProperty(JwtKeyRing.KEY_PROPERTY_PREFIX + kidsAndSecrets[i], kidsAndSecrets[i + 1]);
+        }
+        return file;
+    }
+
+    @Test
+    @DisplayName("builder - Stamps the active key id")
+    void shouldSignWithActiveKeyId() {
+        // Arrange
+        JwtKeyRing ring = defaultRing.reload(ringFile("k2", "k2", "secondSecret"), 0, RETENTION_MS);
+
+        // Act
+        String token = ring.builder().setSubject(TEST_USER_EMAIL).compact();
+
+        // Assert
+        assertEquals("k2", ring.parser().parseClaimsJws(token).getHeader().getKeyId());
+        assertEquals(TEST_USER_EMAIL, ring.parser().parseClaimsJws(token).getBody().getSubject());
+        assertThrows(SignatureException.class, () -> defaultRing.parser().parseClaimsJws(token));
+    }
+
+    @Test
+    @DisplayName("parser - Tokens without a key id are verified with the configured secret")
+    void shouldVerifyTokensWithoutKeyIdWithDefaultKey() {
+        // Arrange
+        JwtKeyRing ring = defaultRing.reload(ringFile("k2", "k2", "secondSecret"), 0, RETENTION_MS);
+        String token = Jwts.builder().setSubject(TEST_USER_EMAIL)
+                .signWith(SignatureAlgorithm.HS512, TEST_JWT_TOKEN).compact();
+
+        // Act & Assert
+        assertEquals(TEST_USER_EMAIL, ring.parser().parseClaimsJws(token).getBody().getSubject());
+    }
+
+    @Test
+    @DisplayName("parser - Rejects unknown key ids and tokens claiming a key they were not signed with")
+    void shouldRejectUnknownOrMismatchedKeyId() {
+        // Arrange
+        String unknown = Jwts.builder().setHeaderParam("kid", "nope").setSubject(TEST_USER_EMAIL)
+                .signWith(SignatureAlgorithm.HS512, TEST_JWT_TOKEN).compact();
+        String mismatched = Jwts.builder().setHeaderParam("kid", JwtKeyRing.DEFAULT_KID).setSubject(TEST_USER_EMAIL)
+                .signWith(SignatureAlgorithm.HS512, "secondSecret").compact();
+
+        // Act & Assert
+        assertThrows(SignatureException.class, () -> defaultRing.parser().parseClaimsJws(unknown));
+        assertThrows(SignatureException.class, () -> defaultRing.parser().parseClaimsJws(mismatched));
+    }
+
+    @Test
+    @DisplayName("reload - Keys dropped from the file keep verifying until the retention ends")
+    void shouldRetireDroppedKeys() {
+        // Arrange
+        JwtKeyRing first = defaultRing.reload(ringFile("k1", "k1", "firstSecret"), 0, RETENTION_MS);
+        String token = first.builder().setSubject(TEST_USER_EMAIL).compact();
+
+        // Act
+        JwtKeyRing second = first.reload(ringFile("k2", "k2", "secondSecret"), 1_000, RETENTION_MS);
+
+        // Assert
+        assertEquals("k2", second.getActiveKid());
+        assertEquals(TEST_USER_EMAIL, second.parser().parseClaimsJws(token).getBody().getSubject());
+        assertSame(second, second.purgeRetired(RETENTION_MS));
+        JwtKeyRing purged = second.purgeRetired(1_000 + RETENTION_MS);
+        assertFalse(purged.contains("k1"));
+        assertThrows(SignatureException.class, () -> purged.parser().parseClaimsJws(token));
+    }
+
+    @Test
+    @DisplayName("reload - Rejects files without a listed active key")
+    void shouldRejectInvalidFiles() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> defaultRing.reload(new Properties(), 0, RETENTION_MS));
+        assertThrows(IllegalArgumentException.class,
+                () -> defaultRing.reload(ringFile("k3", "k2", "secondSecret"), 0, RETENTION_MS));
+        assertThrows(IllegalArgumentException.class,
+                () -> defaultRing.reload(ringFile(JwtKeyRing.DEFAULT_KID, JwtKeyRing.DEFAULT_KID, "other"), 0, RETENTION_MS));
+    }
+
+    @Test
+    @DisplayName("reload - Can switch back to signing with the configured secret")
+    void shouldAllowDefaultKeyAsActive() {
+        // Act
+        JwtKeyRing ring = defaultRing.reload(ringFile(JwtKeyRing.DEFAULT_KID, "k2", "secondSecret"), 0, RETENTION_MS);
+
+        // Assert
+        assertEquals(JwtKeyRing.DEFAULT_KID, ring.getActiveKid());
+        assertTrue(ring.contains("k2"));
+    }
+}
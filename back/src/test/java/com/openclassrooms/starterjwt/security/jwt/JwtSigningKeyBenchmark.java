@@ -0,0 +1,48 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import com.openclassrooms.starterjwt.testUtils.MicroBenchmark;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static com.openclassrooms.starterjwt.testUtils.TestConstants.TEST_JWT_TOKEN;
+import static com.openclassrooms.starterjwt.testUtils.TestConstants.TEST_USER_EMAIL;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tokens verified and signed per second with the string secret handed to jjwt on every call, against the key
+ * derived once with a per-thread {@link javax.crypto.Mac}.
+ * Run with {@code mvn test -Dtest=JwtSigningKeyBenchmark}.
+ */
+class JwtSigningKeyBenchmark {
+
+    private static final int WARMUP = 20_000;
+    private static final int MEASURED = 200_000;
+
+    @Test
+    void verifyAndSignThroughput() throws Exception {
+        JwtKeyRing keyRing = JwtKeyRing.of(TEST_JWT_TOKEN);
+        String token = Jwts.builder()
+                .setSubject(TEST_USER_EMAIL)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 86_400_000))
+                .signWith(SignatureAlgorithm.HS512, TEST_JWT_TOKEN)
+                .compact();
+
+        MicroBenchmark.Result jjwtVerify = MicroBenchmark.measure("verify, jjwt string secret", WARMUP, MEASURED,
+                () -> Jwts.parser().setSigningKey(TEST_JWT_TOKEN).parseClaimsJws(token));
+        MicroBenchmark.Result pooledVerify = MicroBenchmark.measure("verify, derived key + pooled Mac", WARMUP, MEASURED,
+                () -> keyRing.parser().parseClaimsJws(token));
+        MicroBenchmark.compare(jjwtVerify, pooledVerify);
+
+        MicroBenchmark.Result jjwtSign = MicroBenchmark.measure("sign, jjwt string secret", WARMUP, MEASURED,
+                () -> Jwts.builder().setSubject(TEST_USER_EMAIL).signWith(SignatureAlgorithm.HS512, TEST_JWT_TOKEN).compact());
+        MicroBenchmark.Result pooledSign = MicroBenchmark.measure("sign, derived key + pooled Mac", WARMUP, MEASURED,
+                () -> keyRing.builder().setSubject(TEST_USER_EMAIL).compact());
+        MicroBenchmark.compare(jjwtSign, pooledSign);
+
+        assertTrue(pooledVerify.opsPerSecond() > 0);
+    }
+}
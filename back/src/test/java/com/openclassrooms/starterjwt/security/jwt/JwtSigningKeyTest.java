@@ -0,0 +1,88 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static com.openclassrooms.starterjwt.testUtils.TestConstants.TEST_JWT_TOKEN;
+import static com.openclassrooms.starterjwt.testUtils.TestConstants.TEST_USER_EMAIL;
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtSigningKeyTest {
+
+    private final JwtSigningKey signingKey = new JwtSigningKey(null, TEST_JWT_TOKEN);
+
+    // Verifies through the default key of a ring, which checks signatures with JwtSigningKey's own validator.
+    private final JwtKeyRing keyRing = JwtKeyRing.of(TEST_JWT_TOKEN);
+
+    @Test
+    @DisplayName("builder - Tokens are readable by the stock jjwt parser")
+    void shouldSignLikeJjwt() {
+        // Arrange
+        String token = signingKey.builder().setSubject(TEST_USER_EMAIL).compact();
+
+        // Act
+        Claims claims = Jwts.parser().setSigningKey(TEST_JWT_TOKEN).parseClaimsJws(token).getBody();
+
+        // Assert
+        assertEquals(TEST_USER_EMAIL, claims.getSubject());
+    }
+
+    @Test
+    @DisplayName("parser - Accepts tokens signed by the stock jjwt builder")
+    void shouldVerifyJjwtTokens() {
+        // Arrange
+        String token = Jwts.builder()
+                .setSubject(TEST_USER_EMAIL)
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS512, TEST_JWT_TOKEN)
+                .compact();
+
+        // Act
+        Claims claims = keyRing.parser().parseClaimsJws(token).getBody();
+
+        // Assert
+        assertEquals(TEST_USER_EMAIL, claims.getSubject());
+    }
+
+    @Test
+    @DisplayName("parser - Rejects tokens signed with another secret or algorithm")
+    void shouldRejectForeignSignatures() {
+        // Arrange
+        String otherSecret = Jwts.builder().setSubject(TEST_USER_EMAIL)
+                .signWith(SignatureAlgorithm.HS512, "wrongSecretKey").compact();
+        String otherAlgorithm = Jwts.builder().setSubject(TEST_USER_EMAIL)
+                .signWith(SignatureAlgorithm.HS256, TEST_JWT_TOKEN).compact();
+
+        // Act & Assert
+        assertThrows(SignatureException.class, () -> keyRing.parser().parseClaimsJws(otherSecret));
+        assertThrows(SignatureException.class, () -> keyRing.parser().parseClaimsJws(otherAlgorithm));
+    }
+
+    @Test
+    @DisplayName("parser - Reuses the per-thread Mac across tokens")
+    void shouldVerifyRepeatedly() {
+        // Arrange
+        String first = signingKey.builder().setSubject("first").compact();
+        String second = signingKey.builder().setSubject("second").compact();
+
+        // Act & Assert
+        for (int i = 0; i < 3; i++) {
+            assertEquals("first", keyRing.parser().parseClaimsJws(first).getBody().getSubject());
+            assertEquals("second", keyRing.parser().parseClaimsJws(second).getBody().getSubject());
+        }
+    }
+
+    @Test
+    @DisplayName("constructor - Rejects an empty secret")
+    void shouldRejectEmptySecret() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new JwtSigningKey(null, ""));
+        assertThrows(IllegalArgumentException.class, () -> new JwtSigningKey(null, null));
+    }
+}
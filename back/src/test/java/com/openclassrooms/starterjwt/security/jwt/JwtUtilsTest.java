@@ -3,14 +3,20 @@ package com.openclassrooms.starterjwt.security.jwt;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.Authentication;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.Date;
 
 import static com.openclassrooms.starterjwt.testUtils.TestConstants.TEST_JWT_TOKEN;
@@ -34,13 +40,18 @@ class JwtUtilsTest {
     private static final Integer TEST_JWT_EXPIRATION_MS = 86400000;
     private static final String TEST_USERNAME = "username";
 
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(jwtUtils, JWT_SECRET_FIELD_NAME, TEST_JWT_TOKEN);
+        ReflectionTestUtils.setField(jwtUtils, JWT_EXPIRATION_MS_FIELD_NAME, TEST_JWT_EXPIRATION_MS);
+        jwtUtils.reloadKeyRing();
+    }
+
     @Test
     void shouldValidateValidJwtToken() {
         // Arrange
         when(mockUserDetails.getUsername()).thenReturn(TEST_USER_EMAIL);
         when(mockAuthentication.getPrincipal()).thenReturn(mockUserDetails);
-        ReflectionTestUtils.setField(jwtUtils, JWT_SECRET_FIELD_NAME, TEST_JWT_TOKEN);
-        ReflectionTestUtils.setField(jwtUtils, JWT_EXPIRATION_MS_FIELD_NAME, TEST_JWT_EXPIRATION_MS);
 
         String generatedJwtToken = jwtUtils.generateJwtToken(mockAuthentication);
 
@@ -66,7 +77,6 @@ class JwtUtilsTest {
     @Test
     void shouldNotValidateExpiredJwtToken() {
         // Arrange
-        ReflectionTestUtils.setField(jwtUtils, JWT_SECRET_FIELD_NAME, TEST_JWT_TOKEN);
         String expiredJwtToken = Jwts.builder()
                 .setSubject(TEST_USERNAME)
                 .setIssuedAt(new Date(System.currentTimeMillis() - 3600000)) // 1 hour ago
@@ -84,7 +94,6 @@ class JwtUtilsTest {
     @Test
     void shouldNotValidateJwtTokenWithInvalidSignature() {
         // Arrange
-        ReflectionTestUtils.setField(jwtUtils, JWT_SECRET_FIELD_NAME, TEST_JWT_TOKEN);
         String jwtTokenWithInvalidSignature = Jwts.builder()
                 .setSubject(TEST_USERNAME)
                 .setIssuedAt(new Date())
@@ -116,8 +125,6 @@ class JwtUtilsTest {
         // Arrange
         when(mockUserDetails.getUsername()).thenReturn(TEST_USERNAME);
         when(mockAuthentication.getPrincipal()).thenReturn(mockUserDetails);
-        ReflectionTestUtils.setField(jwtUtils, JWT_SECRET_FIELD_NAME, TEST_JWT_TOKEN);
-        ReflectionTestUtils.setField(jwtUtils, JWT_EXPIRATION_MS_FIELD_NAME, TEST_JWT_EXPIRATION_MS);
 
         String generatedJwtToken = jwtUtils.generateJwtToken(mockAuthentication);
 
@@ -151,4 +158,148 @@ class JwtUtilsTest {
         // Assert
         assertFalse(isTokenValid);
     }
+
+    @Test
+    void shouldReturnClaimsWhenVerifyingValidJwtToken() {
+        // Arrange
+        when(mockUserDetails.getUsername()).thenReturn(TEST_USERNAME);
+        when(mockAuthentication.getPrincipal()).thenReturn(mockUserDetails);
+
+        String generatedJwtToken = jwtUtils.generateJwtToken(mockAuthentication);
+
+        // Act
+        JwtVerification verification = jwtUtils.verify(generatedJwtToken);
+
+        // Assert
+        assertTrue(verification.isValid());
+        assertNull(verification.getFailure());
+        assertEquals(TEST_USERNAME, verification.getClaims().getSubject());
+        assertNotNull(verification.getClaims().getIssuedAt());
+        assertTrue(verification.getClaims().getExpiration().after(verification.getClaims().getIssuedAt()));
+    }
+
+    @Test
+    void shouldReturnExpiredFailureWhenVerifyingExpiredJwtToken() {
+        // Arrange
+        String expiredJwtToken = Jwts.builder()
+                .setSubject(TEST_USERNAME)
+                .setIssuedAt(new Date(System.currentTimeMillis() - 3600000))
+                .setExpiration(new Date(System.currentTimeMillis() - 1800000))
+                .signWith(SignatureAlgorithm.HS512, TEST_JWT_TOKEN)
+                .compact();
+
+        // Act
+        JwtVerification verification = jwtUtils.verify(expiredJwtToken);
+
+        // Assert
+        assertFalse(verification.isValid());
+        assertNull(verification.getClaims());
+        assertEquals(JwtVerification.Failure.EXPIRED, verification.getFailure());
+    }
+
+    @Test
+    void shouldReturnBadSignatureFailureWhenVerifyingTokenSignedWithAnotherKey() {
+        // Arrange
+        String jwtTokenWithInvalidSignature = Jwts.builder()
+                .setSubject(TEST_USERNAME)
+                .setExpiration(new Date(System.currentTimeMillis() + 3600000))
+                .signWith(SignatureAlgorithm.HS512, "wrongSecretKey")
+                .compact();
+
+        // Act
+        JwtVerification verification = jwtUtils.verify(jwtTokenWithInvalidSignature);
+
+        // Assert
+        assertEquals(JwtVerification.Failure.BAD_SIGNATURE, verification.getFailure());
+    }
+
+    @Test
+    void shouldExposeCustomClaimsAsImmutableMap() {
+        // Arrange
+        String jwtToken = Jwts.builder()
+                .setSubject(TEST_USERNAME)
+                .claim("custom", "value")
+                .setExpiration(new Date(System.currentTimeMillis() + 3600000))
+                .signWith(SignatureAlgorithm.HS512, TEST_JWT_TOKEN)
+                .compact();
+
+        // Act
+        JwtClaims claims = jwtUtils.verify(jwtToken).getClaims();
+
+        // Assert
+        assertEquals("value", claims.getCustomClaim("custom"));
+        assertFalse(claims.getCustomClaims().containsKey("sub"));
+        assertThrows(UnsupportedOperationException.class, () -> claims.getCustomClaims().put("other", "value"));
+    }
+
+    @Test
+    void shouldEmbedPrincipalClaimsInGeneratedToken() {
+        // Arrange
+        UserDetailsImpl principal = UserDetailsImpl.builder()
+                .id(42L)
+                .username(TEST_USER_EMAIL)
+                .firstName("First")
+                .lastName("Last")
+                .admin(true)
+                .build();
+        when(mockAuthentication.getPrincipal()).thenReturn(principal);
+
+        String generatedJwtToken = jwtUtils.generateJwtToken(mockAuthentication);
+
+        // Act
+        UserDetailsImpl userDetails = jwtUtils.getUserDetailsFromClaims(jwtUtils.verify(generatedJwtToken).getClaims());
+
+        // Assert
+        assertEquals(42L, userDetails.getId());
+        assertEquals(TEST_USER_EMAIL, userDetails.getUsername());
+        assertEquals("First", userDetails.getFirstName());
+        assertEquals("Last", userDetails.getLastName());
+        assertTrue(userDetails.getAdmin());
+    }
+
+    @Test
+    void shouldGiveEachGeneratedTokenItsOwnId() {
+        // Arrange
+        when(mockUserDetails.getUsername()).thenReturn(TEST_USER_EMAIL);
+        when(mockAuthentication.getPrincipal()).thenReturn(mockUserDetails);
+
+        // Act
+        JwtClaims first = jwtUtils.verify(jwtUtils.generateJwtToken(mockAuthentication)).getClaims();
+        JwtClaims second = jwtUtils.verify(jwtUtils.generateJwtToken(mockAuthentication)).getClaims();
+
+        // Assert
+        assertNotNull(first.getId());
+        assertNotEquals(first.getId(), second.getId());
+        assertFalse(first.getCustomClaims().containsKey("jti"));
+    }
+
+    @Test
+    void shouldNotRebuildPrincipalFromTokenWithoutPrincipalClaims() {
+        // Arrange
+        JwtClaims claims = new JwtClaims(TEST_USERNAME, new Date(), new Date(), java.util.Collections.emptyMap());
+
+        // Act & Assert
+        assertNull(jwtUtils.getUserDetailsFromClaims(claims));
+    }
+
+    @Test
+    void shouldKeepVerifyingTokensAfterKeyRotation(@TempDir Path tempDir) throws IOException {
+        // Arrange
+        when(mockUserDetails.getUsername()).thenReturn(TEST_USER_EMAIL);
+        when(mockAuthentication.getPrincipal()).thenReturn(mockUserDetails);
+        Path ringFile = tempDir.resolve("jwt-keys.properties");
+        ReflectionTestUtils.setField(jwtUtils, "jwtKeyRingFile", ringFile.toString());
+        String beforeRotation = jwtUtils.generateJwtToken(mockAuthentication);
+
+        // Act
+        Files.write(ringFile, "active=k2\nkey.k2=secondSecret\n".getBytes());
+        Files.setLastModifiedTime(ringFile, FileTime.fromMillis(System.currentTimeMillis()));
+        jwtUtils.reloadKeyRing();
+        String afterRotation = jwtUtils.generateJwtToken(mockAuthentication);
+
+        // Assert
+        assertTrue(jwtUtils.validateJwtToken(beforeRotation));
+        assertTrue(jwtUtils.validateJwtToken(afterRotation));
+        assertEquals("k2", Jwts.parser().setSigningKey("secondSecret").parseClaimsJws(afterRotation).getHeader().getKeyId());
+    }
 }
@@ -0,0 +1,128 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.openclassrooms.starterjwt.testUtils.TestConstants.TEST_USER_EMAIL;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRevocationStoreTest {
+
+    private static final long JWT_EXPIRATION_MS = 86400000;
+
+    private TokenRevocationStore tokenRevocationStore;
+
+    @BeforeEach
+    void setUp() {
+        tokenRevocationStore = new TokenRevocationStore(1 << 16, 5, JWT_EXPIRATION_MS, new SimpleMeterRegistry());
+    }
+
+    private static JwtClaims claims(String tokenId, long issuedAtMillis) {
+        return new JwtClaims(TEST_USER_EMAIL, tokenId, new Date(issuedAtMillis + 60000), new Date(issuedAtMillis),
+                Collections.emptyMap());
+    }
+
+    @Test
+    @DisplayName("revokeToken - Only the revoked token id is rejected")
+    void shouldRevokeSingleToken() {
+        // Arrange
+        long now = System.currentTimeMillis();
+        tokenRevocationStore.revokeToken("revoked", new Date(now + 60000));
+
+        // Act & Assert
+        assertTrue(tokenRevocationStore.isRevoked(claims("revoked", now), 1L));
+        assertFalse(tokenRevocationStore.isRevoked(claims("other", now), 1L));
+        assertFalse(tokenRevocationStore.isRevoked(claims(null, now), 1L));
+    }
+
+    @Test
+    @DisplayName("revokeUser - Rejects tokens issued before the revocation only")
+    void shouldRevokeTokensIssuedBeforeUserRevocation() {
+        // Arrange
+        long now = System.currentTimeMillis();
+        tokenRevocationStore.revokeUser(1L);
+
+        // Act & Assert
+        assertTrue(tokenRevocationStore.isRevoked(claims("old", now - 60000), 1L));
+        assertFalse(tokenRevocationStore.isRevoked(claims("new", now + 60000), 1L));
+        assertFalse(tokenRevocationStore.isRevoked(claims("old", now - 60000), 2L));
+    }
+
+    @Test
+    @DisplayName("purgeExpired - Drops revocations of expired tokens")
+    void shouldPurgeExpiredRevocations() {
+        // Arrange
+        long now = System.currentTimeMillis();
+        tokenRevocationStore.revokeToken("expired", new Date(now - 1000));
+        tokenRevocationStore.revokeToken("live", new Date(now + 60000));
+
+        // Act
+        tokenRevocationStore.purgeExpired();
+
+        // Assert
+        assertEquals(1, tokenRevocationStore.size());
+        assertFalse(tokenRevocationStore.isRevoked(claims("expired", now), 1L));
+        assertTrue(tokenRevocationStore.isRevoked(claims("live", now), 1L));
+    }
+
+    @Test
+    @DisplayName("purgeExpired - Live revocations stay visible while the filter is rebuilt")
+    void shouldKeepRevocationsVisibleDuringPurge() throws Exception {
+        // Arrange
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 5000; i++) {
+            tokenRevocationStore.revokeToken("live-" + i, new Date(now + 60000));
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        CompletableFuture<Void> purger = CompletableFuture.runAsync(() -> {
+            for (int i = 0; running.get(); i++) {
+                tokenRevocationStore.revokeToken("expired-" + i, new Date(now - 1000));
+                tokenRevocationStore.purgeExpired();
+            }
+        });
+
+        // Act & Assert
+        try {
+            for (int round = 0; round < 200; round++) {
+                for (int i = 0; i < 5000; i += 97) {
+                    assertTrue(tokenRevocationStore.isRevoked(claims("live-" + i, now), 1L), "live-" + i);
+                }
+            }
+        } finally {
+            running.set(false);
+            purger.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    @DisplayName("ConcurrentBloomFilter - No false negatives and few false positives")
+    void shouldAnswerBloomFilterQueries() {
+        // Arrange
+        ConcurrentBloomFilter filter = new ConcurrentBloomFilter(1 << 16, 5);
+        for (int i = 0; i < 1000; i++) {
+            filter.put("jti:" + i);
+        }
+
+        // Act
+        int falsePositives = 0;
+        for (int i = 1000; i < 11000; i++) {
+            if (filter.mightContain("jti:" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Assert
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("jti:" + i));
+        }
+        assertTrue(falsePositives < 100, "false positives: " + falsePositives);
+    }
+}
@@ -0,0 +1,78 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static com.openclassrooms.starterjwt.testUtils.TestConstants.TEST_USER_EMAIL;
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private static final String TEST_TOKEN = "header.payload.signature";
+
+    private VerifiedTokenCache verifiedTokenCache;
+    private UserDetailsImpl principal;
+
+    @BeforeEach
+    void setUp() {
+        verifiedTokenCache = new VerifiedTokenCache(100, 600000, new SimpleMeterRegistry());
+        principal = UserDetailsImpl.builder().id(1L).username(TEST_USER_EMAIL).build();
+    }
+
+    @Test
+    @DisplayName("Cached token is returned until invalidated")
+    void shouldReturnCachedPrincipal() {
+        // Arrange
+        verifiedTokenCache.put(TEST_TOKEN, principal, new Date(System.currentTimeMillis() + 60000));
+
+        // Act & Assert
+        assertSame(principal, verifiedTokenCache.get(TEST_TOKEN));
+        assertNull(verifiedTokenCache.get("another.token.value"));
+        assertEquals(1, verifiedTokenCache.stats().hitCount());
+        assertEquals(1, verifiedTokenCache.stats().missCount());
+    }
+
+    @Test
+    @DisplayName("Expired token is not cached")
+    void shouldNotReturnExpiredToken() {
+        // Arrange
+        verifiedTokenCache.put(TEST_TOKEN, principal, new Date(System.currentTimeMillis() - 1000));
+
+        // Act & Assert
+        assertNull(verifiedTokenCache.get(TEST_TOKEN));
+    }
+
+    @Test
+    @DisplayName("Token without expiration is not cached")
+    void shouldIgnoreTokenWithoutExpiration() {
+        // Arrange
+        verifiedTokenCache.put(TEST_TOKEN, principal, null);
+
+        // Act & Assert
+        assertNull(verifiedTokenCache.get(TEST_TOKEN));
+    }
+
+    @Test
+    @DisplayName("Deleting a user drops all of its cached tokens")
+    void shouldInvalidateUserTokens() {
+        // Arrange
+        UserDetailsImpl otherPrincipal = UserDetailsImpl.builder().id(2L).username("other@studio.com").build();
+        Date expiration = new Date(System.currentTimeMillis() + 60000);
+        verifiedTokenCache.put(TEST_TOKEN, principal, expiration);
+        verifiedTokenCache.put("second.token.value", principal, expiration);
+        verifiedTokenCache.put("other.token.value", otherPrincipal, expiration);
+
+        // Act
+        verifiedTokenCache.invalidateUser(1L);
+
+        // Assert
+        assertNull(verifiedTokenCache.get(TEST_TOKEN));
+        assertNull(verifiedTokenCache.get("second.token.value"));
+        assertSame(otherPrincipal, verifiedTokenCache.get("other.token.value"));
+    }
+}
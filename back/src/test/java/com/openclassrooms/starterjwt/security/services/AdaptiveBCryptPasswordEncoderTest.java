@@ -0,0 +1,72 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static com.openclassrooms.starterjwt.testUtils.TestConstants.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveBCryptPasswordEncoderTest {
+
+    @Test
+    @DisplayName("encode - Hashes with the configured cost and matches the raw password")
+    void shouldEncodeWithConfiguredStrength() {
+        // Arrange
+        AdaptiveBCryptPasswordEncoder encoder = new AdaptiveBCryptPasswordEncoder(5);
+
+        // Act
+        String encoded = encoder.encode(TEST_USER_PASSWORD);
+
+        // Assert
+        assertTrue(encoded.startsWith("$2a$05$"));
+        assertTrue(encoder.matches(TEST_USER_PASSWORD, encoded));
+        assertFalse(encoder.matches("wrong", encoded));
+    }
+
+    @Test
+    @DisplayName("matches - Accepts hashes made with another cost")
+    void shouldMatchHashesOfAnotherStrength() {
+        // Arrange
+        AdaptiveBCryptPasswordEncoder encoder = new AdaptiveBCryptPasswordEncoder(5);
+        String legacyHash = new BCryptPasswordEncoder(4).encode(TEST_USER_PASSWORD);
+
+        // Act & Assert
+        assertTrue(encoder.matches(TEST_USER_PASSWORD, legacyHash));
+    }
+
+    @Test
+    @DisplayName("upgradeEncoding - True only when the stored cost is lower")
+    void shouldUpgradeOnlyLowerStrengths() {
+        // Arrange
+        AdaptiveBCryptPasswordEncoder encoder = new AdaptiveBCryptPasswordEncoder(5);
+
+        // Act & Assert
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode(TEST_USER_PASSWORD)));
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode(TEST_USER_PASSWORD)));
+        assertFalse(encoder.upgradeEncoding(encoder.encode(TEST_USER_PASSWORD)));
+        assertFalse(encoder.upgradeEncoding(null));
+        assertFalse(encoder.upgradeEncoding("not-a-bcrypt-hash"));
+    }
+
+    @Test
+    @DisplayName("calibrated - Never below the configured floor")
+    void shouldKeepFloorWhenTargetIsTooShort() {
+        // Act
+        AdaptiveBCryptPasswordEncoder encoder = AdaptiveBCryptPasswordEncoder.calibrated(0, 9, 12);
+
+        // Assert
+        assertEquals(9, encoder.getStrength());
+        assertTrue(encoder.encode(TEST_USER_PASSWORD).startsWith("$2a$09$"));
+    }
+
+    @Test
+    @DisplayName("calibrated - Raises the cost up to the maximum while under the target time")
+    void shouldRaiseCostUpToMaximum() {
+        // Act
+        AdaptiveBCryptPasswordEncoder encoder = AdaptiveBCryptPasswordEncoder.calibrated(60_000, 4, 9);
+
+        // Assert
+        assertEquals(9, encoder.getStrength());
+    }
+}
@@ -0,0 +1,38 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import com.openclassrooms.starterjwt.testUtils.MicroBenchmark;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static com.openclassrooms.starterjwt.testUtils.TestConstants.TEST_USER_PASSWORD;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Single-threaded BCrypt verification rate for each cost factor, i.e. the logins one core can serve per second.
+ * Run with {@code mvn test -Dtest=BCryptCostBenchmark}.
+ */
+class BCryptCostBenchmark {
+
+    private static final int MIN_COST = 8;
+    private static final int MAX_COST = 13;
+    private static final long BUDGET_MILLIS_PER_COST = 2_000;
+
+    @Test
+    void loginsPerCorePerCost() throws Exception {
+        for (int cost = MIN_COST; cost <= MAX_COST; cost++) {
+            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+            String hash = encoder.encode(TEST_USER_PASSWORD);
+
+            long start = System.nanoTime();
+            encoder.matches(TEST_USER_PASSWORD, hash);
+            long singleMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            int measured = (int) Math.max(3, BUDGET_MILLIS_PER_COST / singleMillis);
+
+            MicroBenchmark.Result result = MicroBenchmark.measure("BCrypt cost " + cost, 1, measured,
+                    () -> encoder.matches(TEST_USER_PASSWORD, hash));
+            System.out.printf("cost %d: %.1f logins/s per core, %.1f ms per login%n",
+                    cost, result.opsPerSecond(), result.nanosPerOp() / 1_000_000);
+            assertTrue(result.opsPerSecond() > 0);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static com.openclassrooms.starterjwt.testUtils.TestConstants.TEST_USER_EMAIL;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaffeineUserDetailsCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CaffeineUserDetailsCache userDetailsCache;
+    private AtomicInteger loads;
+    private Function<String, UserDetailsImpl> loader;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        userDetailsCache = new CaffeineUserDetailsCache(100, 600000, meterRegistry);
+        loads = new AtomicInteger();
+        loader = email -> {
+            loads.incrementAndGet();
+            return UserDetailsImpl.builder().id(1L).username(email).build();
+        };
+    }
+
+    @Test
+    @DisplayName("Second lookup is served from the cache")
+    void shouldLoadOnce() {
+        // Act
+        UserDetailsImpl first = userDetailsCache.get(TEST_USER_EMAIL, loader);
+        UserDetailsImpl second = userDetailsCache.get(TEST_USER_EMAIL, loader);
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(0.5, userDetailsCache.stats().hitRate());
+        assertEquals(1, meterRegistry.get("userDetails.cache.load").timer().count());
+    }
+
+    @Test
+    @DisplayName("Invalidate by email forces a reload")
+    void shouldReloadAfterInvalidate() {
+        // Arrange
+        userDetailsCache.get(TEST_USER_EMAIL, loader);
+
+        // Act
+        userDetailsCache.invalidate(TEST_USER_EMAIL);
+        userDetailsCache.get(TEST_USER_EMAIL, loader);
+
+        // Assert
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Invalidate by user id forces a reload")
+    void shouldReloadAfterInvalidateUser() {
+        // Arrange
+        userDetailsCache.get(TEST_USER_EMAIL, loader);
+
+        // Act
+        userDetailsCache.invalidateUser(1L);
+        userDetailsCache.get(TEST_USER_EMAIL, loader);
+
+        // Assert
+        assertEquals(2, loads.get());
+    }
+}
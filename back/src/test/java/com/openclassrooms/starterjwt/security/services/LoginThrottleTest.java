@@ -0,0 +1,105 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import com.openclassrooms.starterjwt.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.openclassrooms.starterjwt.testUtils.TestConstants.TEST_USER_EMAIL;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+
+    private static final String CLIENT_IP = "10.0.0.1";
+
+    private SimpleMeterRegistry meterRegistry;
+    private LoginThrottle loginThrottle;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        loginThrottle = new LoginThrottle(3, 60000, 5, 60000, 1000, meterRegistry);
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get("auth.login.throttle").tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    @DisplayName("acquire - Throttles an email once its burst is spent, whatever its case")
+    void shouldThrottleEmailAfterBurst() {
+        // Act
+        loginThrottle.acquire(TEST_USER_EMAIL, CLIENT_IP);
+        loginThrottle.acquire(TEST_USER_EMAIL.toUpperCase(), CLIENT_IP);
+        loginThrottle.acquire(TEST_USER_EMAIL, "10.0.0.2");
+        TooManyRequestsException exception = assertThrows(TooManyRequestsException.class,
+                () -> loginThrottle.acquire(TEST_USER_EMAIL, "10.0.0.3"));
+
+        // Assert
+        assertTrue(exception.getRetryAfterSeconds() > 0 && exception.getRetryAfterSeconds() <= 60);
+        assertEquals(3, count("allowed"));
+        assertEquals(1, count("throttled_email"));
+        loginThrottle.acquire("other@studio.com", "10.0.0.3");
+    }
+
+    @Test
+    @DisplayName("acquire - Throttles an IP across emails")
+    void shouldThrottleIpAfterBurst() {
+        // Act
+        for (int i = 0; i < 5; i++) {
+            loginThrottle.acquire("user" + i + "@studio.com", CLIENT_IP);
+        }
+
+        // Assert
+        assertThrows(TooManyRequestsException.class, () -> loginThrottle.acquire("user5@studio.com", CLIENT_IP));
+        assertEquals(1, count("throttled_ip"));
+    }
+
+    @Test
+    @DisplayName("acquire - An email rejection does not spend the IP token")
+    void shouldNotSpendIpTokenWhenEmailIsThrottled() {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.acquire(TEST_USER_EMAIL, "10.0.0." + (i + 10));
+        }
+
+        // Act
+        for (int i = 0; i < 10; i++) {
+            assertThrows(TooManyRequestsException.class, () -> loginThrottle.acquire(TEST_USER_EMAIL, CLIENT_IP));
+        }
+
+        // Assert
+        for (int i = 0; i < 5; i++) {
+            loginThrottle.acquire("user" + i + "@studio.com", CLIENT_IP);
+        }
+    }
+
+    @Test
+    @DisplayName("refund - Successful logins do not count against the limits")
+    void shouldRefundSuccessfulLogins() {
+        // Act & Assert
+        for (int i = 0; i < 10; i++) {
+            loginThrottle.acquire(TEST_USER_EMAIL, CLIENT_IP);
+            loginThrottle.refund(TEST_USER_EMAIL, CLIENT_IP);
+        }
+    }
+
+    @Test
+    @DisplayName("Limiter - Refills one token per interval")
+    void shouldRefillOverTime() {
+        // Arrange
+        LoginThrottle.Limiter limiter = new LoginThrottle.Limiter(2, 1000, 10);
+        long now = System.nanoTime();
+
+        // Act & Assert
+        assertEquals(0, limiter.tryAcquire("key", now));
+        assertEquals(0, limiter.tryAcquire("key", now));
+        long wait = limiter.tryAcquire("key", now);
+        assertEquals(TimeUnit.SECONDS.toNanos(1), wait);
+        assertEquals(0, limiter.tryAcquire("key", now + wait));
+        assertTrue(limiter.tryAcquire("key", now + wait) > 0);
+    }
+}
@@ -0,0 +1,114 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        passwordHashingExecutor = new PasswordHashingExecutor(1, 1, 3, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingExecutor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Runs the task on the hashing pool")
+    void shouldRunTaskOnHashingPool() {
+        // Act
+        String threadName = passwordHashingExecutor.submit(() -> Thread.currentThread().getName()).join();
+
+        // Assert
+        assertTrue(threadName.startsWith("password-hashing-"));
+    }
+
+    @Test
+    @DisplayName("Rejects fast once the threads and the queue are busy")
+    void shouldRejectWhenSaturated() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = passwordHashingExecutor.submit(() -> {
+            started.countDown();
+            try {
+                return release.await(5, java.util.concurrent.TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+        started.await();
+        CompletableFuture<Boolean> queued = passwordHashingExecutor.submit(() -> true);
+
+        // Act
+        ServiceUnavailableException exception = assertThrows(ServiceUnavailableException.class,
+                () -> passwordHashingExecutor.submit(() -> true));
+
+        // Assert
+        assertEquals(3, exception.getRetryAfterSeconds());
+        assertEquals(1, passwordHashingExecutor.getQueueDepth());
+        assertEquals(1, passwordHashingExecutor.getRejectionCount());
+        assertEquals(1.0, meterRegistry.get("auth.hashing.rejected").counter().count());
+
+        release.countDown();
+        assertTrue(running.join());
+        assertTrue(queued.join());
+    }
+
+    @Test
+    @DisplayName("submitBulk - Waits for room and leaves half of the queue to the auth endpoints")
+    void shouldKeepQueueHeadroomForAuthWhenBulkSubmitting() throws Exception {
+        // Arrange
+        PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 4, 3, meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<Boolean> running = executor.submit(() -> {
+                started.countDown();
+                try {
+                    return release.await(5, java.util.concurrent.TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            });
+            started.await();
+            executor.submitBulk(() -> true);
+            executor.submitBulk(() -> true);
+
+            // Act
+            CompletableFuture<CompletableFuture<Boolean>> waitingBulk = CompletableFuture.supplyAsync(() -> executor.submitBulk(() -> true));
+            CompletableFuture<Boolean> login = executor.submit(() -> true);
+            CompletableFuture<Boolean> register = executor.submit(() -> true);
+
+            // Assert
+            assertFalse(waitingBulk.isDone());
+            assertEquals(4, executor.getQueueDepth());
+            release.countDown();
+            assertTrue(running.join());
+            assertTrue(login.join());
+            assertTrue(register.join());
+            assertTrue(waitingBulk.get(5, java.util.concurrent.TimeUnit.SECONDS).join());
+            assertEquals(0, executor.getRejectionCount());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import com.openclassrooms.starterjwt.models.RefreshToken;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.RefreshTokenRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static com.openclassrooms.starterjwt.testUtils.TestConstants.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    private static final long EXPIRATION_MS = 60000;
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private RefreshTokenService refreshTokenService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, userRepository, EXPIRATION_MS);
+
+        user = new User(TEST_USER_EMAIL, TEST_USER_LAST_NAME, TEST_USER_FIRST_NAME, TEST_USER_PASSWORD, false);
+        user.setId(1L);
+    }
+
+    @Test
+    @DisplayName("Issue - Stores only the hash of the returned token")
+    void shouldStoreHashOfIssuedToken() {
+        // Arrange
+        when(userRepository.getById(1L)).thenReturn(user);
+
+        // Act
+        String token = refreshTokenService.issue(1L);
+
+        // Assert
+        ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(captor.capture());
+        RefreshToken stored = captor.getValue();
+        assertNotEquals(token, stored.getTokenHash());
+        assertEquals(RefreshTokenService.hash(token), stored.getTokenHash());
+        assertEquals(64, stored.getTokenHash().length());
+        assertSame(user, stored.getUser());
+        assertTrue(stored.getExpiresAt().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    @DisplayName("Rotate - Swaps the stored hash and returns the owner with a new token")
+    void shouldRotateValidToken() {
+        // Arrange
+        String hash = RefreshTokenService.hash("token");
+        RefreshToken stored = RefreshToken.builder().id(7L).tokenHash(hash).user(user)
+                .expiresAt(LocalDateTime.now().plusMinutes(1)).build();
+        when(refreshTokenRepository.findByTokenHashWithUser(hash)).thenReturn(Optional.of(stored));
+        when(refreshTokenRepository.rotate(eq(7L), eq(hash), anyString(), any())).thenReturn(1);
+
+        // Act
+        Optional<RefreshTokenService.Rotation> rotation = refreshTokenService.rotate("token");
+
+        // Assert
+        assertTrue(rotation.isPresent());
+        assertEquals(1L, rotation.get().getUserDetails().getId());
+        assertEquals(TEST_USER_EMAIL, rotation.get().getUserDetails().getUsername());
+        assertNotEquals("token", rotation.get().getRefreshToken());
+        verify(refreshTokenRepository).rotate(eq(7L), eq(hash), eq(RefreshTokenService.hash(rotation.get().getRefreshToken())), any());
+    }
+
+    @Test
+    @DisplayName("Rotate - Empty for an unknown token")
+    void shouldRejectUnknownToken() {
+        // Arrange
+        when(refreshTokenRepository.findByTokenHashWithUser(anyString())).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertFalse(refreshTokenService.rotate("token").isPresent());
+        verify(refreshTokenRepository, never()).rotate(anyLong(), anyString(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Rotate - Empty and deleted for an expired token")
+    void shouldRejectAndDeleteExpiredToken() {
+        // Arrange
+        String hash = RefreshTokenService.hash("token");
+        RefreshToken stored = RefreshToken.builder().id(7L).tokenHash(hash).user(user)
+                .expiresAt(LocalDateTime.now().minusMinutes(1)).build();
+        when(refreshTokenRepository.findByTokenHashWithUser(hash)).thenReturn(Optional.of(stored));
+
+        // Act & Assert
+        assertFalse(refreshTokenService.rotate("token").isPresent());
+        verify(refreshTokenRepository).deleteById(7L);
+    }
+
+    @Test
+    @DisplayName("Rotate - Empty when a concurrent request rotated the token first")
+    void shouldRejectTokenRotatedConcurrently() {
+        // Arrange
+        String hash = RefreshTokenService.hash("token");
+        RefreshToken stored = RefreshToken.builder().id(7L).tokenHash(hash).user(user)
+                .expiresAt(LocalDateTime.now().plusMinutes(1)).build();
+        when(refreshTokenRepository.findByTokenHashWithUser(hash)).thenReturn(Optional.of(stored));
+        when(refreshTokenRepository.rotate(eq(7L), eq(hash), anyString(), any())).thenReturn(0);
+
+        // Act & Assert
+        assertFalse(refreshTokenService.rotate("token").isPresent());
+    }
+}
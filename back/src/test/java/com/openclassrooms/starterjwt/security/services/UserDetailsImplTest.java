@@ -117,10 +117,19 @@ class UserDetailsImplTest {
     }
 
     @Test
-    @DisplayName("GetAuthorities - Returns Empty Set")
-    void shouldReturnEmptySetForGetAuthorities() {
+    @DisplayName("GetAuthorities - Returns ROLE_USER for a regular user")
+    void shouldReturnUserRoleForGetAuthorities() {
         // Act & Assert
-        assertTrue(userDetails1.getAuthorities().isEmpty());
+        assertEquals(1, userDetails1.getAuthorities().size());
+        assertTrue(userDetails1.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_USER")));
+    }
+
+    @Test
+    @DisplayName("GetAuthorities - Returns ROLE_USER and ROLE_ADMIN for an admin")
+    void shouldReturnAdminRoleForGetAuthorities() {
+        // Act & Assert
+        assertEquals(2, userDetails2.getAuthorities().size());
+        assertTrue(userDetails2.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN")));
     }
 
     @Test
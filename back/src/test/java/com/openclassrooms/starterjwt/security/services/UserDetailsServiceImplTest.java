@@ -2,6 +2,7 @@ package com.openclassrooms.starterjwt.security.services;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,11 +13,15 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 import java.util.Optional;
+import java.util.function.Function;
 
 import static com.openclassrooms.starterjwt.testUtils.TestConstants.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,9 +30,19 @@ class UserDetailsServiceImplTest {
     @Mock
     UserRepository userRepository;
 
+    @Mock
+    UserDetailsCache userDetailsCache;
+
     @InjectMocks
     UserDetailsServiceImpl userDetailsService;
 
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        lenient().when(userDetailsCache.get(anyString(), any(Function.class)))
+                .thenAnswer(invocation -> invocation.getArgument(1, Function.class).apply(invocation.getArgument(0)));
+    }
+
     @Test
     @DisplayName("loadUserByUsername - Success")
     void shouldLoadUserByUsername() {
@@ -57,4 +72,28 @@ class UserDetailsServiceImplTest {
         // Act & Assert
         assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername(TEST_USER_EMAIL));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("updatePassword - Persists the rehashed password and evicts the cached user")
+    void shouldUpdatePassword() {
+        // Arrange
+        UserDetailsImpl user = UserDetailsImpl.builder()
+                .id(1L)
+                .username(TEST_USER_EMAIL)
+                .firstName(TEST_USER_FIRST_NAME)
+                .lastName(TEST_USER_LAST_NAME)
+                .admin(true)
+                .password("$2a$10$oldHash")
+                .build();
+
+        // Act
+        UserDetails updated = userDetailsService.updatePassword(user, "$2a$12$newHash");
+
+        // Assert
+        verify(userRepository).updatePasswordByEmail(TEST_USER_EMAIL, "$2a$12$newHash");
+        verify(userDetailsCache).invalidate(TEST_USER_EMAIL);
+        assertEquals("$2a$12$newHash", updated.getPassword());
+        assertEquals(user.getId(), ((UserDetailsImpl) updated).getId());
+        assertEquals(true, ((UserDetailsImpl) updated).getAdmin());
+    }
+}
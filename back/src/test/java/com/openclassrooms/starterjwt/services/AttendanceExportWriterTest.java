@@ -0,0 +1,82 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttendanceExportWriterTest {
+
+    private static final LocalDateTime DATE = LocalDateTime.of(2030, 1, 2, 10, 30);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static void writeSessions(AttendanceExportWriter writer) throws IOException {
+        writer.startSession(1, "Morning, \"slow\" flow", DATE, 4L, "Margot", "Delahaye");
+        writer.participant("yoga@studio.com");
+        writer.participant("toto@studio.com");
+        writer.endSession();
+        writer.startSession(2, "Empty", null, null, null, null);
+        writer.endSession();
+        writer.finish();
+    }
+
+    @Test
+    @DisplayName("ndjson - Writes one JSON object per session and line")
+    void shouldWriteOneLinePerSession() throws IOException {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        writeSessions(AttendanceExportWriter.ndjson(out, objectMapper.getFactory()));
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n", -1);
+        assertEquals(3, lines.length);
+        assertEquals("", lines[2]);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(1, first.get("sessionId").asLong());
+        assertEquals("Morning, \"slow\" flow", first.get("sessionName").asText());
+        assertEquals("2030-01-02T10:30:00", first.get("date").asText());
+        assertEquals(4, first.get("teacherId").asLong());
+        assertEquals("Delahaye", first.get("teacherLastName").asText());
+        assertEquals("toto@studio.com", first.get("participantEmails").get(1).asText());
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertTrue(second.get("teacherId").isNull());
+        assertEquals(0, second.get("participantEmails").size());
+    }
+
+    @Test
+    @DisplayName("csv - Writes a header then one quoted record per session")
+    void shouldWriteOneRecordPerSession() throws IOException {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        writeSessions(AttendanceExportWriter.csv(out));
+
+        // Assert
+        String[] records = out.toString(StandardCharsets.UTF_8.name()).split("\r\n", -1);
+        assertEquals(4, records.length);
+        assertEquals("sessionId,sessionName,date,teacherId,teacherFirstName,teacherLastName,participantEmails", records[0]);
+        assertEquals("1,\"Morning, \"\"slow\"\" flow\",2030-01-02T10:30:00,4,Margot,Delahaye,\"yoga@studio.com;toto@studio.com\"",
+                records[1]);
+        assertEquals("2,Empty,,,,,\"\"", records[2]);
+        assertEquals(UserImportReader.splitCsv(records[1]).get(1), "Morning, \"slow\" flow");
+    }
+
+    @Test
+    @DisplayName("quoteCsv - Leaves plain values alone")
+    void shouldOnlyQuoteWhenNeeded() {
+        // Act & Assert
+        assertEquals("Delahaye", AttendanceExportWriter.quoteCsv("Delahaye"));
+        assertEquals("\"a\nb\"", AttendanceExportWriter.quoteCsv("a\nb"));
+    }
+}
@@ -0,0 +1,90 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.Teacher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaffeineTeacherCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CaffeineTeacherCache teacherCache;
+    private AtomicInteger listLoads;
+    private AtomicInteger idLoads;
+    private Supplier<List<Teacher>> listLoader;
+    private Function<Long, Teacher> idLoader;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        teacherCache = new CaffeineTeacherCache(100, 600000, meterRegistry);
+        listLoads = new AtomicInteger();
+        idLoads = new AtomicInteger();
+        listLoader = () -> {
+            listLoads.incrementAndGet();
+            return Arrays.asList(Teacher.builder().id(1L).build(), Teacher.builder().id(2L).build());
+        };
+        idLoader = id -> {
+            idLoads.incrementAndGet();
+            return Teacher.builder().id(id).build();
+        };
+    }
+
+    @Test
+    @DisplayName("getAll - The list is loaded once and fills the entries by id")
+    void shouldServeLookupsFromTheListSnapshot() {
+        // Act
+        List<Teacher> first = teacherCache.getAll(listLoader);
+        List<Teacher> second = teacherCache.getAll(listLoader);
+        Teacher teacher = teacherCache.get(2L, idLoader);
+
+        // Assert
+        assertSame(first, second);
+        assertSame(first.get(1), teacher);
+        assertEquals(1, listLoads.get());
+        assertEquals(0, idLoads.get());
+        assertEquals(1.0, teacherCache.idStats().hitRate());
+        assertEquals(0.5, teacherCache.listStats().hitRate());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tags("cache", "teachers", "kind", "id", "result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tags("cache", "teachers", "kind", "list", "result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tags("cache", "teachers", "kind", "list", "result", "miss").functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("get - Unknown teachers are not cached")
+    void shouldNotCacheMissingTeachers() {
+        // Act
+        assertNull(teacherCache.get(3L, id -> null));
+        Teacher teacher = teacherCache.get(3L, idLoader);
+
+        // Assert
+        assertEquals(3L, teacher.getId());
+        assertEquals(1, idLoads.get());
+    }
+
+    @Test
+    @DisplayName("invalidateAll - Reloads the list and the entries by id")
+    void shouldReloadAfterInvalidateAll() {
+        // Arrange
+        teacherCache.getAll(listLoader);
+        teacherCache.get(5L, idLoader);
+
+        // Act
+        teacherCache.invalidateAll();
+        teacherCache.getAll(listLoader);
+        teacherCache.get(5L, idLoader);
+
+        // Assert
+        assertEquals(2, listLoads.get());
+        assertEquals(2, idLoads.get());
+    }
+}
@@ -0,0 +1,207 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static com.openclassrooms.starterjwt.testUtils.TestConstants.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Enrolls many users into one session from many threads at once and checks the participant rows and the
+ * seat counters against each other, and prints the withdrawal latency while hundreds of users are waitlisted.
+ * Also prints the enrollments per second into one session with a single seat row and with the configured
+ * number of seat rows. Run it against MySQL, whose row locks and deadlock detection it is meant to exercise.
+ */
+@SpringBootTest
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = TEST_SCRIPT)
+public class SessionEnrollmentStressIT {
+
+    private static final int THREADS = 16;
+    private static final int USERS = 400;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> userIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(new Object[] {"Stress", "User" + i, "stress" + i + "@studio.com", TEST_USER_PASSWORD});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO USERS (last_name, first_name, email, password) VALUES (?, ?, ?, ?)", users);
+        userIds.addAll(jdbcTemplate.queryForList("SELECT id FROM USERS WHERE email LIKE 'stress%' ORDER BY id", Long.class));
+    }
+
+    @Test
+    @DisplayName("Concurrent enrollment - Never exceeds the capacity")
+    void shouldNotOverbook() throws Exception {
+        long sessionId = createSession(50);
+
+        Result result = enrollEveryone(sessionId);
+
+        assertEquals(50, result.enrolled);
+        assertEquals(USERS - 50, result.waitlisted);
+        assertConsistent(sessionId, 50);
+        assertEquals(USERS - 50, waitlistSize(sessionId));
+    }
+
+    @Test
+    @DisplayName("Concurrent withdrawal - Returns before the waitlist is promoted, then promotes in order")
+    void shouldPromoteWaitlistInBackground() throws Exception {
+        long sessionId = createSession(50);
+        enrollEveryone(sessionId);
+        List<Long> enrolledIds = jdbcTemplate.queryForList(
+                "SELECT user_id FROM PARTICIPATE WHERE session_id = ? ORDER BY user_id", Long.class, sessionId);
+        List<Long> expectedPromoted = jdbcTemplate.queryForList(
+                "SELECT user_id FROM WAITLIST WHERE session_id = ? ORDER BY position LIMIT 20", Long.class, sessionId);
+
+        long begin = System.nanoTime();
+        runConcurrently(enrolledIds.subList(0, 20), userId -> sessionService.noLongerParticipate(sessionId, userId));
+        long elapsedNanos = System.nanoTime() - begin;
+        System.out.printf("Withdrawal with %d waitlisted: %d withdrawals, %.2f ms per withdrawal%n",
+                USERS - 50, 20, elapsedNanos / 1e6 / 20);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (waitlistSize(sessionId) > USERS - 70 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(USERS - 70, waitlistSize(sessionId));
+        assertConsistent(sessionId, 50);
+        List<Long> participants = jdbcTemplate.queryForList(
+                "SELECT user_id FROM PARTICIPATE WHERE session_id = ?", Long.class, sessionId);
+        assertTrue(participants.containsAll(expectedPromoted));
+    }
+
+    @Test
+    @DisplayName("Concurrent enrollment - Loses no enrollment")
+    void shouldNotLoseEnrollments() throws Exception {
+        long sessionId = createSession(null);
+
+        Result result = enrollEveryone(sessionId);
+
+        assertEquals(USERS, result.enrolled);
+        assertConsistent(sessionId, USERS);
+    }
+
+    @Test
+    @DisplayName("Concurrent enrollment - Throughput with one seat row and with striped seat rows")
+    void shouldReportEnrollmentThroughput() throws Exception {
+        Object target = AopTestUtils.getUltimateTargetObject(sessionService);
+        int seatStripes = (int) ReflectionTestUtils.getField(target, "seatStripes");
+        try {
+            for (int stripes : new int[] {1, seatStripes}) {
+                ReflectionTestUtils.setField(target, "seatStripes", stripes);
+                long sessionId = createSession(USERS);
+
+                long begin = System.nanoTime();
+                Result result = enrollEveryone(sessionId);
+                long elapsedNanos = System.nanoTime() - begin;
+                System.out.printf("Enrollment with %d seat rows: %d threads, %.0f enrollments/s%n",
+                        stripes, THREADS, result.enrolled / (elapsedNanos / 1e9));
+
+                assertEquals(USERS, result.enrolled);
+                assertConsistent(sessionId, USERS);
+            }
+        } finally {
+            ReflectionTestUtils.setField(target, "seatStripes", seatStripes);
+        }
+    }
+
+    private long createSession(Integer capacity) {
+        jdbcTemplate.update("INSERT INTO TEACHERS (last_name, first_name) VALUES (?, ?)",
+                TEST_TEACHER_LAST_NAME, TEST_TEACHER_FIRST_NAME);
+        Teacher teacher = new Teacher();
+        teacher.setId(jdbcTemplate.queryForObject("SELECT MAX(id) FROM TEACHERS", Long.class));
+        return sessionService.create(Session.builder()
+                .name(TEST_SESSION_NAME)
+                .description(TEST_SESSION_DESCRIPTION)
+                .date(new Date())
+                .teacher(teacher)
+                .capacity(capacity)
+                .build()).getId();
+    }
+
+    private Result enrollEveryone(long sessionId) throws Exception {
+        AtomicInteger enrolled = new AtomicInteger();
+        AtomicInteger waitlisted = new AtomicInteger();
+
+        runConcurrently(userIds, userId -> {
+            if (sessionService.participate(sessionId, userId) == Enrollment.ENROLLED) {
+                enrolled.incrementAndGet();
+            } else {
+                waitlisted.incrementAndGet();
+            }
+        });
+        return new Result(enrolled.get(), waitlisted.get());
+    }
+
+    private void runConcurrently(List<Long> ids, Consumer<Long> action) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Long id : ids) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    action.accept(id);
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private int waitlistSize(long sessionId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM WAITLIST WHERE session_id = ?", Integer.class, sessionId);
+    }
+
+    private void assertConsistent(long sessionId, int expected) {
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = ?", Integer.class, sessionId);
+        Integer counter = jdbcTemplate.queryForObject("SELECT SUM(taken) FROM SESSION_SEATS WHERE session_id = ?", Integer.class, sessionId);
+        assertEquals(expected, rows);
+        assertEquals(expected, counter);
+    }
+
+    private static final class Result {
+        private final int enrolled;
+        private final int waitlisted;
+
+        private Result(int enrolled, int waitlisted) {
+            this.enrolled = enrolled;
+            this.waitlisted = waitlisted;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.repository.SessionSummary;
+import com.openclassrooms.starterjwt.testUtils.MicroBenchmark;
+import com.openclassrooms.starterjwt.testUtils.SqlStatementCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static com.openclassrooms.starterjwt.testUtils.TestConstants.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Seeds a large SESSIONS table, captures the SQL that {@link com.openclassrooms.starterjwt.repository.SessionRepository}
+ * sends for each filtered listing, checks with EXPLAIN that it reads a range of the (date, id) or (teacher_id, date)
+ * index, then measures the filtered listings through the service. Needs the MySQL test database; run with
+ * {@code mvn test -Dtest=SessionFilterBenchmark}, {@code -Dbenchmark.sessions} changes the row count.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.openclassrooms.starterjwt.testUtils.SqlStatementCounter")
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = TEST_SCRIPT)
+public class SessionFilterBenchmark {
+
+    private static final int SESSIONS = Integer.getInteger("benchmark.sessions", 1_000_000);
+    private static final int TEACHERS = 1_000;
+    private static final int BATCH = 10_000;
+    private static final long START = Timestamp.valueOf("2025-01-01 00:00:00").getTime();
+    private static final long SPACING_MS = 97_000;
+    private static final int WARMUP = 50;
+    private static final int MEASURED = 500;
+    private static final int PAGE = 50;
+
+    private static final String DATE_INDEX = "IDX_SESSIONS_DATE_ID";
+    private static final String TEACHER_INDEX = "IDX_SESSIONS_TEACHER_DATE";
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void filteredListings() throws Exception {
+        seed();
+
+        Date upcoming = new Date(START + SESSIONS / 2 * SPACING_MS);
+        Date monthLater = new Date(upcoming.getTime() + 30L * 24 * 3600 * 1000);
+        Long teacherId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM TEACHERS", Long.class) + TEACHERS / 2;
+
+        SessionFilter nextMonth = new SessionFilter(upcoming, monthLater, null, false);
+        SessionFilter upcomingWithSeats = new SessionFilter(upcoming, null, null, true);
+        SessionFilter teacherUpcoming = new SessionFilter(upcoming, null, teacherId, false);
+        SessionFilter teacherWithSeats = new SessionFilter(upcoming, null, teacherId, true);
+
+        // Each page query binds the filter in the order of the repository query, then the window size.
+        assertIndexRange("next month", DATE_INDEX,
+                () -> sessionService.findPage(0, PAGE, nextMonth),
+                upcoming, monthLater, false, PAGE);
+        SessionPage withSeats = assertIndexRange("upcoming with free seats", DATE_INDEX,
+                () -> sessionService.findPage(0, PAGE, upcomingWithSeats),
+                upcoming, SessionFilter.LATEST, true, PAGE);
+        SessionSummary last = lastOf(withSeats);
+        assertIndexRange("upcoming with free seats after cursor", DATE_INDEX,
+                () -> sessionService.findAfter(withSeats.getNextCursor(), PAGE, upcomingWithSeats),
+                upcoming, SessionFilter.LATEST, true, last.getDate(), last.getDate(), last.getId(), PAGE + 1);
+        assertIndexRange("teacher upcoming", TEACHER_INDEX,
+                () -> sessionService.findPage(0, PAGE, teacherUpcoming),
+                upcoming, SessionFilter.LATEST, false, teacherId, PAGE);
+        SessionPage teacherPage = sessionService.findPage(0, PAGE, teacherWithSeats);
+        SessionSummary teacherLast = lastOf(teacherPage);
+        assertIndexRange("teacher upcoming with free seats after cursor", TEACHER_INDEX,
+                () -> sessionService.findAfter(teacherPage.getNextCursor(), PAGE, teacherWithSeats),
+                upcoming, SessionFilter.LATEST, true, teacherId, teacherLast.getDate(), teacherLast.getDate(),
+                teacherLast.getId(), PAGE + 1);
+
+        MicroBenchmark.latencies("next month, first page", WARMUP, MEASURED,
+                () -> sessionService.findPage(0, PAGE, nextMonth));
+        MicroBenchmark.latencies("upcoming with free seats, next window", WARMUP, MEASURED,
+                () -> sessionService.findAfter(withSeats.getNextCursor(), PAGE, upcomingWithSeats));
+        MicroBenchmark.latencies("teacher upcoming, first page", WARMUP, MEASURED,
+                () -> sessionService.findPage(0, PAGE, teacherUpcoming));
+    }
+
+    private void seed() {
+        List<Object[]> teachers = new ArrayList<>(TEACHERS);
+        for (int i = 0; i < TEACHERS; i++) {
+            teachers.add(new Object[] {"Teacher" + i, TEST_TEACHER_FIRST_NAME});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO TEACHERS (last_name, first_name) VALUES (?, ?)", teachers);
+        long firstTeacherId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM TEACHERS", Long.class);
+
+        long begin = System.nanoTime();
+        List<Object[]> sessions = new ArrayList<>(BATCH);
+        for (int i = 0; i < SESSIONS; i++) {
+            sessions.add(new Object[] {TEST_SESSION_NAME, TEST_SESSION_DESCRIPTION, new Timestamp(START + i * SPACING_MS),
+                    firstTeacherId + i % TEACHERS, 20});
+            if (sessions.size() == BATCH) {
+                insertSessions(sessions);
+                sessions.clear();
+            }
+        }
+        insertSessions(sessions);
+        jdbcTemplate.update("INSERT INTO SESSION_SEATS (session_id, stripe, taken, quota) "
+                + "SELECT s.id, 0, LEAST(MOD(s.id, 25), 20), 20 FROM SESSIONS s");
+
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        jdbcTemplate.execute(product.toLowerCase(Locale.ROOT).contains("mysql") ? "ANALYZE TABLE SESSIONS, SESSION_SEATS" : "ANALYZE");
+        System.out.printf("Seeded %d sessions in %.1f s%n", SESSIONS, (System.nanoTime() - begin) / 1e9);
+    }
+
+    private void insertSessions(List<Object[]> sessions) {
+        if (!sessions.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO SESSIONS (name, description, date, teacher_id, capacity) "
+                    + "VALUES (?, ?, ?, ?, ?)", sessions);
+        }
+    }
+
+    private static SessionSummary lastOf(SessionPage page) {
+        assertEquals(PAGE, page.getSessions().size());
+        return page.getSessions().get(PAGE - 1);
+    }
+
+    /**
+     * Runs the listing once, takes the windowed query it sent, and checks that its plan reads the sessions
+     * table as a range of the given index.
+     */
+    private SessionPage assertIndexRange(String name, String index, Supplier<SessionPage> listing, Object... args) {
+        SqlStatementCounter.reset();
+        SessionPage page = listing.get();
+        String sql = SqlStatementCounter.recorded().stream()
+                .filter(statement -> statement.toLowerCase(Locale.ROOT).contains(" order by "))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError(name + " sent no windowed query"));
+        assertEquals(args.length, sql.chars().filter(c -> c == '?').count(), name + " binds other parameters: " + sql);
+
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, args);
+        System.out.printf("%s:%n%s%n%s%n", name, sql,
+                plan.stream().map(Map::toString).collect(Collectors.joining("\n")));
+        Map<String, Object> sessions = plan.stream()
+                .filter(row -> !String.valueOf(row.get("select_type")).toUpperCase(Locale.ROOT).contains("SUBQUERY"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError(name + " has no plan for the sessions table"));
+        assertEquals(index, sessions.get("key"), name + " does not read " + index);
+        assertEquals("range", sessions.get("type"), name + " does not read a range of " + index);
+        return page;
+    }
+}
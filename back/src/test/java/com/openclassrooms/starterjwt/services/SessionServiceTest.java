@@ -3,16 +3,30 @@ package com.openclassrooms.starterjwt.services;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
+import com.openclassrooms.starterjwt.repository.Participation;
+import com.openclassrooms.starterjwt.repository.SeatStripe;
+import com.openclassrooms.starterjwt.repository.SessionListVersion;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.SessionSummary;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.*;
 
@@ -36,11 +50,21 @@ class SessionServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private WaitlistRepository waitlistRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     private Session mockSession;
     private User mockUser;
 
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(sessionService, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(sessionService, "maxPageSize", 3);
+        ReflectionTestUtils.setField(sessionService, "listVersionStripes", 4);
+        ReflectionTestUtils.setField(sessionService, "seatStripes", 4);
         mockSession = new Session();
         mockSession.setId(EXISTING_SESSION_ID);
         mockUser = new User();
@@ -58,9 +82,29 @@ class SessionServiceTest {
 
         // Assert
         verify(sessionRepository).save(mockSession);
+        verify(sessionRepository, times(4)).addSeatStripe(eq(EXISTING_SESSION_ID), anyInt(), eq(0), isNull());
+        verify(sessionRepository).bumpListVersion(intThat(stripe -> stripe >= 0 && stripe < 4));
         assertEquals(mockSession, actualSession);
     }
 
+    @Test
+    @DisplayName("Create session - Spreads the capacity and the participants over the seat rows")
+    void shouldSpreadCapacityOverSeatStripes() {
+        // Arrange
+        mockSession.setCapacity(10);
+        mockSession.setUsers(Arrays.asList(mockUser, new User()));
+        when(sessionRepository.save(any(Session.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        sessionService.create(mockSession);
+
+        // Assert
+        verify(sessionRepository).addSeatStripe(EXISTING_SESSION_ID, 0, 1, 3);
+        verify(sessionRepository).addSeatStripe(EXISTING_SESSION_ID, 1, 1, 3);
+        verify(sessionRepository).addSeatStripe(EXISTING_SESSION_ID, 2, 0, 2);
+        verify(sessionRepository).addSeatStripe(EXISTING_SESSION_ID, 3, 0, 2);
+    }
+
     @Test
     @DisplayName("Delete session")
     void shouldDeleteSessionWhenDeleteIsCalled() {
@@ -68,7 +112,29 @@ class SessionServiceTest {
         sessionService.delete(EXISTING_SESSION_ID);
 
         // Assert
-        verify(sessionRepository).deleteById(EXISTING_SESSION_ID);
+        InOrder inOrder = inOrder(sessionRepository);
+        inOrder.verify(sessionRepository).deleteSeatStripes(EXISTING_SESSION_ID);
+        inOrder.verify(sessionRepository).deleteById(EXISTING_SESSION_ID);
+        inOrder.verify(sessionRepository).bumpListVersion(anyInt());
+    }
+
+    @Test
+    @DisplayName("List version - Read from the version counter, not from the sessions")
+    void shouldReadListVersionFromCounter() {
+        // Arrange
+        SessionListVersion version = mock(SessionListVersion.class);
+        when(version.getVersion()).thenReturn(42L);
+        when(version.getUpdatedAt()).thenReturn(new Date(1_700_000_000_000L));
+        when(sessionRepository.findListVersion()).thenReturn(version);
+
+        // Act
+        ResourceVersion listVersion = sessionService.getListVersion();
+
+        // Assert
+        assertEquals("\"sessions-42-1700000000000\"", listVersion.getEtag());
+        assertEquals(1_700_000_000_000L, listVersion.getLastModified());
+        verify(sessionRepository, never()).findAll();
+        verify(sessionRepository, never()).count();
     }
 
     @Test
@@ -87,6 +153,97 @@ class SessionServiceTest {
         assertTrue(sessions.containsAll(Arrays.asList(mockSession, secondExpectedSession)));
     }
 
+    @Test
+    @DisplayName("Find page - Ordered by date then id, with total, next cursor and participant ids")
+    void shouldReturnPageWithTotalAndNextCursor() {
+        // Arrange
+        SessionSummary first = summary(1L, new Date(1000));
+        SessionSummary second = summary(2L, new Date(1000));
+        PageRequest request = PageRequest.of(0, 2, Sort.by("date", "id"));
+        List<Participation> participations = Arrays.asList(participation(1L, 10L), participation(1L, 11L));
+        when(sessionRepository.findSummaries(request)).thenReturn(new PageImpl<>(Arrays.asList(first, second), request, 5));
+        when(sessionRepository.findParticipations(Arrays.asList(1L, 2L))).thenReturn(participations);
+
+        // Act
+        SessionPage page = sessionService.findPage(0, null, SessionFilter.NONE);
+
+        // Assert
+        assertEquals(2, page.getSessions().size());
+        assertEquals(5L, page.getTotalCount());
+        assertEquals(Arrays.asList(10L, 11L), page.participantIdsOf(1L));
+        assertTrue(page.participantIdsOf(2L).isEmpty());
+        assertNotNull(page.getNextCursor());
+        when(sessionRepository.findSummariesAfter(new Date(1000), 2L, PageRequest.of(0, 3)))
+                .thenReturn(new SliceImpl<>(Collections.emptyList()));
+        SessionPage next = sessionService.findAfter(page.getNextCursor(), 50, SessionFilter.NONE);
+        assertTrue(next.getSessions().isEmpty());
+        assertNull(next.getNextCursor());
+        assertNull(next.getTotalCount());
+        verify(sessionRepository, never()).findParticipations(Collections.emptyList());
+    }
+
+    @Test
+    @DisplayName("Find page - Bad Request for malformed cursors and sizes")
+    void shouldRejectInvalidPagination() {
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> sessionService.findAfter("not a cursor", null, SessionFilter.NONE));
+        assertThrows(BadRequestException.class, () -> sessionService.findAfter("MTIz", null, SessionFilter.NONE));
+        assertThrows(BadRequestException.class, () -> sessionService.findPage(-1, null, SessionFilter.NONE));
+        assertThrows(BadRequestException.class, () -> sessionService.findPage(0, 0, SessionFilter.NONE));
+        verifyNoInteractions(sessionRepository);
+    }
+
+    @Test
+    @DisplayName("Find page - Filters on the teacher index or the date index, with open bounds clamped")
+    void shouldRouteFiltersToIndexedQueries() {
+        // Arrange
+        Date from = new Date(5000);
+        PageRequest request = PageRequest.of(0, 2, Sort.by("date", "id"));
+        when(sessionRepository.findTeacherSummariesBetween(4L, from, SessionFilter.LATEST, true, request))
+                .thenReturn(new PageImpl<>(Collections.emptyList(), request, 0));
+        when(sessionRepository.findSummariesBetween(SessionFilter.EARLIEST, from, false, request))
+                .thenReturn(new PageImpl<>(Collections.emptyList(), request, 0));
+
+        // Act
+        SessionPage teacherPage = sessionService.findPage(0, null, new SessionFilter(from, null, 4L, true));
+        SessionPage datePage = sessionService.findPage(0, null, new SessionFilter(null, from, null, false));
+
+        // Assert
+        assertTrue(teacherPage.getSessions().isEmpty());
+        assertEquals(0L, datePage.getTotalCount());
+        verify(sessionRepository, never()).findSummaries(any());
+    }
+
+    @Test
+    @DisplayName("Find after - Keeps the filter on the following windows")
+    void shouldKeepFilterAfterCursor() {
+        // Arrange
+        SessionSummary first = summary(1L, new Date(1000));
+        PageRequest request = PageRequest.of(0, 1, Sort.by("date", "id"));
+        when(sessionRepository.findSummariesBetween(SessionFilter.EARLIEST, SessionFilter.LATEST, true, request))
+                .thenReturn(new PageImpl<>(Collections.singletonList(first), request, 2));
+        when(sessionRepository.findSummariesBetweenAfter(SessionFilter.EARLIEST, SessionFilter.LATEST, true,
+                new Date(1000), 1L, PageRequest.of(0, 1)))
+                .thenReturn(new SliceImpl<>(Collections.emptyList()));
+        SessionFilter filter = new SessionFilter(null, null, null, true);
+
+        // Act
+        SessionPage page = sessionService.findPage(0, 1, filter);
+        SessionPage next = sessionService.findAfter(page.getNextCursor(), 1, filter);
+
+        // Assert
+        assertTrue(next.getSessions().isEmpty());
+        verify(sessionRepository, never()).findSummariesAfter(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Filter - Bad Request when the range ends before it starts")
+    void shouldRejectEmptyDateRange() {
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> new SessionFilter(new Date(2000), new Date(1000), null, false));
+        assertTrue(SessionFilter.NONE.isEmpty());
+    }
+
     @Test
     @DisplayName("Find Session By Existing ID")
     void shouldReturnSessionWhenGetByIdIsCalledWithExistingId() {
@@ -104,81 +261,190 @@ class SessionServiceTest {
     @DisplayName("Update Session")
     void shouldUpdateSessionWhenUpdateIsCalled() {
         // Arrange
-        Session updatedSession = new Session();
-        updatedSession.setId(EXISTING_SESSION_ID);
-        when(sessionRepository.save(updatedSession)).thenReturn(updatedSession);
+        Teacher teacher = new Teacher();
+        teacher.setId(3L);
+        Date date = new Date();
+        Session updatedSession = Session.builder().name("Name").description("Description").date(date)
+                .teacher(teacher).capacity(10).build();
+        List<SeatStripe> stripes = Arrays.asList(seatStripe(0, 1), seatStripe(1, 0));
+        when(sessionRepository.lockSeatStripes(EXISTING_SESSION_ID)).thenReturn(stripes);
+        when(sessionRepository.updateDetails(EXISTING_SESSION_ID, "Name", "Description", date, 3L, 10)).thenReturn(1);
+        when(sessionRepository.findById(EXISTING_SESSION_ID)).thenReturn(Optional.of(mockSession));
 
         // Act
         Session actualSession = sessionService.update(EXISTING_SESSION_ID, updatedSession);
 
         // Assert
-        verify(sessionRepository).save(updatedSession);
-        assertEquals(updatedSession, actualSession);
+        InOrder inOrder = inOrder(sessionRepository);
+        inOrder.verify(sessionRepository).lockSeatStripes(EXISTING_SESSION_ID);
+        inOrder.verify(sessionRepository).updateDetails(EXISTING_SESSION_ID, "Name", "Description", date, 3L, 10);
+        verify(sessionRepository).setSeatQuota(EXISTING_SESSION_ID, 0, 6);
+        verify(sessionRepository).setSeatQuota(EXISTING_SESSION_ID, 1, 4);
+        verify(sessionRepository, never()).save(any(Session.class));
+        verify(eventPublisher).publishEvent(any(SeatReleasedEvent.class));
+        assertEquals(mockSession, actualSession);
     }
 
     @Test
     @DisplayName("Add User to Session")
     void shouldAddUserToSessionWhenParticipateIsCalledWithExistingSessionAndUserId() {
         // Arrange
-        mockSession.setUsers(new ArrayList<>());
-        when(sessionRepository.findById(EXISTING_SESSION_ID)).thenReturn(Optional.of(mockSession));
-        when(userRepository.findById(EXISTING_USER_ID)).thenReturn(Optional.of(mockUser));
+        when(sessionRepository.takeSeat(eq(EXISTING_SESSION_ID), anyInt(), anyInt())).thenReturn(1);
+        when(sessionRepository.addParticipant(EXISTING_SESSION_ID, EXISTING_USER_ID)).thenReturn(1);
 
         // Act
-        sessionService.participate(EXISTING_SESSION_ID, EXISTING_USER_ID);
+        Enrollment enrollment = sessionService.participate(EXISTING_SESSION_ID, EXISTING_USER_ID);
 
         // Assert
-        verify(sessionRepository).findById(EXISTING_SESSION_ID);
-        verify(userRepository).findById(EXISTING_USER_ID);
-        assertTrue(mockSession.getUsers().contains(mockUser));
-        verify(sessionRepository).save(mockSession);
+        assertEquals(Enrollment.ENROLLED, enrollment);
+        InOrder inOrder = inOrder(sessionRepository);
+        inOrder.verify(sessionRepository).takeSeat(eq(EXISTING_SESSION_ID), anyInt(), eq(Integer.MAX_VALUE));
+        inOrder.verify(sessionRepository).addParticipant(EXISTING_SESSION_ID, EXISTING_USER_ID);
+        inOrder.verify(sessionRepository).bumpListVersion(anyInt());
+        verify(sessionRepository, never()).findById(any());
+        verify(sessionRepository, never()).save(any());
+        verifyNoInteractions(userRepository);
     }
 
     @Test
     @DisplayName("Remove User from Session")
     void shouldRemoveUserFromSessionWhenNoLongerParticipateIsCalledWithExistingSessionAndUserId() {
         // Arrange
-        User secondExpectedUser = new User();
-        secondExpectedUser.setId(2L);
-        mockSession.setUsers(Arrays.asList(mockUser, secondExpectedUser));
-        when(sessionRepository.findById(EXISTING_SESSION_ID)).thenReturn(Optional.of(mockSession));
+        when(sessionRepository.countParticipant(EXISTING_SESSION_ID, EXISTING_USER_ID)).thenReturn(1);
+        when(sessionRepository.releaseSeat(eq(EXISTING_SESSION_ID), anyInt(), anyInt())).thenReturn(1);
+        when(sessionRepository.removeParticipant(EXISTING_SESSION_ID, EXISTING_USER_ID)).thenReturn(1);
 
         // Act
         sessionService.noLongerParticipate(EXISTING_SESSION_ID, EXISTING_USER_ID);
 
         // Assert
-        verify(sessionRepository).findById(EXISTING_SESSION_ID);
-        assertEquals(1, mockSession.getUsers().size());
-        assertTrue(mockSession.getUsers().contains(secondExpectedUser));
-        verify(sessionRepository).save(mockSession);
+        InOrder inOrder = inOrder(sessionRepository);
+        inOrder.verify(sessionRepository).releaseSeat(eq(EXISTING_SESSION_ID), anyInt(), anyInt());
+        inOrder.verify(sessionRepository).removeParticipant(EXISTING_SESSION_ID, EXISTING_USER_ID);
+        verify(eventPublisher).publishEvent(any(SeatReleasedEvent.class));
+        verify(sessionRepository, never()).findById(any());
+        verify(sessionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Participate - Session Full puts the user on the waitlist")
+    void shouldWaitlistUserWhenNoSeatIsLeft() {
+        // Arrange
+        when(sessionRepository.takeSeat(eq(EXISTING_SESSION_ID), anyInt(), anyInt())).thenReturn(0);
+        when(sessionRepository.existsById(EXISTING_SESSION_ID)).thenReturn(true);
+        when(userRepository.existsById(EXISTING_USER_ID)).thenReturn(true);
+        when(waitlistRepository.enqueue(EXISTING_SESSION_ID, EXISTING_USER_ID)).thenReturn(1);
+
+        // Act
+        Enrollment enrollment = sessionService.participate(EXISTING_SESSION_ID, EXISTING_USER_ID);
+
+        // Assert
+        assertEquals(Enrollment.WAITLISTED, enrollment);
+        verify(sessionRepository, never()).addParticipant(any(), any());
+        verify(sessionRepository, never()).bumpListVersion(anyInt());
+    }
+
+    @Test
+    @DisplayName("Participate - User Already on the Waitlist")
+    void shouldThrowBadRequestExceptionWhenUserIsAlreadyWaitlisted() {
+        // Arrange
+        when(sessionRepository.existsById(EXISTING_SESSION_ID)).thenReturn(true);
+        when(userRepository.existsById(EXISTING_USER_ID)).thenReturn(true);
+        when(waitlistRepository.enqueue(EXISTING_SESSION_ID, EXISTING_USER_ID)).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> sessionService.participate(EXISTING_SESSION_ID, EXISTING_USER_ID));
+    }
+
+    @Test
+    @DisplayName("No Longer Participate - Leaves the waitlist")
+    void shouldLeaveWaitlistWhenNotEnrolled() {
+        // Arrange
+        when(waitlistRepository.dequeue(EXISTING_SESSION_ID, EXISTING_USER_ID)).thenReturn(1);
+
+        // Act
+        sessionService.noLongerParticipate(EXISTING_SESSION_ID, EXISTING_USER_ID);
+
+        // Assert
+        verify(sessionRepository, never()).releaseSeat(any(), anyInt(), anyInt());
+        verify(sessionRepository, never()).removeParticipant(any(), any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Promote Waitlisted - Stops when no seat is left and skips users already enrolled")
+    void shouldPromoteWaitlistHeadWhileSeatsAreLeft() {
+        // Arrange
+        List<WaitlistEntry> head = Arrays.asList(
+                WaitlistEntry.builder().position(10L).sessionId(EXISTING_SESSION_ID).userId(3L).build(),
+                WaitlistEntry.builder().position(11L).sessionId(EXISTING_SESSION_ID).userId(4L).build(),
+                WaitlistEntry.builder().position(12L).sessionId(EXISTING_SESSION_ID).userId(5L).build());
+        when(waitlistRepository.findHead(EXISTING_SESSION_ID, PageRequest.of(0, 3))).thenReturn(head);
+        when(sessionRepository.takeWaitlistedSeat(eq(EXISTING_SESSION_ID), anyInt(), anyInt())).thenReturn(1, 1, 0);
+        when(sessionRepository.releaseSeat(eq(EXISTING_SESSION_ID), anyInt(), anyInt())).thenReturn(1);
+        when(sessionRepository.addParticipant(EXISTING_SESSION_ID, 3L)).thenReturn(1);
+        when(sessionRepository.addParticipant(EXISTING_SESSION_ID, 4L)).thenReturn(0);
+
+        // Act
+        boolean more = sessionService.promoteWaitlisted(EXISTING_SESSION_ID, 3);
+
+        // Assert
+        assertFalse(more);
+        verify(sessionRepository, times(1)).releaseSeat(eq(EXISTING_SESSION_ID), anyInt(), anyInt());
+        verify(waitlistRepository).deleteByPosition(10L);
+        verify(waitlistRepository).deleteByPosition(11L);
+        verify(waitlistRepository, never()).deleteByPosition(12L);
+        verify(sessionRepository, never()).addParticipant(EXISTING_SESSION_ID, 5L);
+        verify(sessionRepository, times(1)).bumpListVersion(anyInt());
+    }
+
+    @Test
+    @DisplayName("Update Session - Bad request for a capacity below the participant count, not found for an unknown session")
+    void shouldRejectUpdateThatCannotApply() {
+        // Arrange
+        Session overbooked = Session.builder().name("Name").capacity(1).build();
+        List<SeatStripe> stripes = Arrays.asList(seatStripe(0, 1), seatStripe(1, 1));
+        when(sessionRepository.lockSeatStripes(EXISTING_SESSION_ID)).thenReturn(stripes);
+        when(sessionRepository.lockSeatStripes(NON_EXISTING_SESSION_ID)).thenReturn(Collections.emptyList());
+        when(sessionRepository.updateDetails(NON_EXISTING_SESSION_ID, "Name", null, null, null, 1)).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> sessionService.update(EXISTING_SESSION_ID, overbooked));
+        assertThrows(NotFoundException.class, () -> sessionService.update(NON_EXISTING_SESSION_ID, overbooked));
+        verify(sessionRepository, never()).updateDetails(eq(EXISTING_SESSION_ID), any(), any(), any(), any(), any());
+        verify(sessionRepository, never()).setSeatQuota(any(), anyInt(), any());
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
     @DisplayName("Participate - Session Not Found")
     void shouldThrowNotFoundExceptionWhenParticipateIsCalledWithNonExistingSessionId() {
         // Arrange
-        when(sessionRepository.findById(NON_EXISTING_SESSION_ID)).thenReturn(Optional.empty());
+        when(sessionRepository.existsById(NON_EXISTING_SESSION_ID)).thenReturn(false);
 
         // Act & Assert
         assertThrows(NotFoundException.class, () -> sessionService.participate(NON_EXISTING_SESSION_ID, EXISTING_USER_ID));
+        verify(sessionRepository, never()).addParticipant(any(), any());
     }
 
     @Test
     @DisplayName("Participate - User Not Found")
     void shouldThrowNotFoundExceptionWhenParticipateIsCalledWithExistingSessionIdAndNonExistingUserId() {
         // Arrange
-        when(sessionRepository.findById(EXISTING_SESSION_ID)).thenReturn(Optional.of(mockSession));
-        when(userRepository.findById(NON_EXISTING_USER_ID)).thenReturn(Optional.empty());
+        when(sessionRepository.takeSeat(eq(EXISTING_SESSION_ID), anyInt(), anyInt())).thenReturn(1);
+        when(sessionRepository.addParticipant(EXISTING_SESSION_ID, NON_EXISTING_USER_ID)).thenReturn(0);
+        when(userRepository.existsById(NON_EXISTING_USER_ID)).thenReturn(false);
 
         // Act & Assert
         assertThrows(NotFoundException.class, () -> sessionService.participate(EXISTING_SESSION_ID, NON_EXISTING_USER_ID));
+        verify(sessionRepository, never()).bumpListVersion(anyInt());
     }
 
     @Test
     @DisplayName("No Longer Participate - Session Not Found")
     void shouldThrowNotFoundExceptionWhenNoLongerParticipateIsCalledWithNonExistingSessionId() {
         // Arrange
-        when(sessionRepository.findById(NON_EXISTING_SESSION_ID)).thenReturn(Optional.empty());
+        when(sessionRepository.existsById(NON_EXISTING_SESSION_ID)).thenReturn(false);
 
         // Act & Assert
         assertThrows(NotFoundException.class, () -> sessionService.noLongerParticipate(NON_EXISTING_SESSION_ID, EXISTING_USER_ID));
@@ -188,22 +454,57 @@ class SessionServiceTest {
     @DisplayName("Participate - User Already in Session")
     void shouldThrowBadRequestExceptionWhenParticipateIsCalledWithExistingSessionIdAndUserAlreadyInSession() {
         // Arrange
-        mockSession.setUsers(Collections.singletonList(mockUser));
-        when(sessionRepository.findById(EXISTING_SESSION_ID)).thenReturn(Optional.of(mockSession));
-        when(userRepository.findById(EXISTING_USER_ID)).thenReturn(Optional.of(mockUser));
+        when(sessionRepository.takeSeat(eq(EXISTING_SESSION_ID), anyInt(), anyInt())).thenReturn(1);
+        when(sessionRepository.addParticipant(EXISTING_SESSION_ID, EXISTING_USER_ID)).thenReturn(0);
+        when(userRepository.existsById(EXISTING_USER_ID)).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> sessionService.participate(EXISTING_SESSION_ID, EXISTING_USER_ID));
+        verify(sessionRepository, never()).bumpListVersion(anyInt());
+    }
+
+    @Test
+    @DisplayName("Participate - User Already in a Full Session")
+    void shouldThrowBadRequestExceptionWhenEnrolledUserFindsSessionFull() {
+        // Arrange
+        when(sessionRepository.existsById(EXISTING_SESSION_ID)).thenReturn(true);
+        when(userRepository.existsById(EXISTING_USER_ID)).thenReturn(true);
+        when(sessionRepository.countParticipant(EXISTING_SESSION_ID, EXISTING_USER_ID)).thenReturn(1);
 
         // Act & Assert
         assertThrows(BadRequestException.class, () -> sessionService.participate(EXISTING_SESSION_ID, EXISTING_USER_ID));
+        verifyNoInteractions(waitlistRepository);
     }
+
     @Test
     @DisplayName("No Longer Participate - User Not in Session")
     void shouldThrowBadRequestExceptionWhenNoLongerParticipateIsCalledWithExistingSessionIdAndUserNotInSession() {
         // Arrange
-        mockSession.setUsers(new ArrayList<>());
-        when(sessionRepository.findById(EXISTING_SESSION_ID)).thenReturn(Optional.of(mockSession));
+        when(sessionRepository.existsById(EXISTING_SESSION_ID)).thenReturn(true);
 
         // Act & Assert
         assertThrows(BadRequestException.class, () -> sessionService.noLongerParticipate(EXISTING_SESSION_ID, EXISTING_USER_ID));
     }
 
-}
\ No newline at end of file
+
+    private static SessionSummary summary(Long id, Date date) {
+        SessionSummary summary = mock(SessionSummary.class);
+        when(summary.getId()).thenReturn(id);
+        lenient().when(summary.getDate()).thenReturn(date);
+        return summary;
+    }
+
+    private static SeatStripe seatStripe(int stripe, int taken) {
+        SeatStripe seatStripe = mock(SeatStripe.class);
+        lenient().when(seatStripe.getStripe()).thenReturn(stripe);
+        when(seatStripe.getTaken()).thenReturn(taken);
+        return seatStripe;
+    }
+
+    private static Participation participation(Long sessionId, Long userId) {
+        Participation participation = mock(Participation.class);
+        when(participation.getSessionId()).thenReturn(sessionId);
+        when(participation.getUserId()).thenReturn(userId);
+        return participation;
+    }
+}
@@ -0,0 +1,73 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+import static com.openclassrooms.starterjwt.testUtils.TestConstants.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+/**
+ * Runs with the near cache on, which the other integration tests switch off.
+ */
+@SpringBootTest(properties = "oc.app.teacherCacheEnabled=true")
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = TEST_SCRIPT)
+public class TeacherCacheIT {
+
+    @Autowired
+    private TeacherService teacherService;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private TeacherCache teacherCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long teacherId;
+    private int teacherCount;
+
+    @BeforeEach
+    void setUp() {
+        teacherCache.invalidateAll();
+        jdbcTemplate.update("INSERT INTO TEACHERS (last_name, first_name) VALUES (?, ?)",
+                TEST_TEACHER_LAST_NAME, TEST_TEACHER_FIRST_NAME);
+        teacherId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM TEACHERS", Long.class);
+        teacherCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM TEACHERS", Integer.class);
+    }
+
+    @Test
+    @DisplayName("Near cache - Writes outside JPA are only seen after invalidation")
+    void shouldServeTeachersFromMemory() {
+        assertInstanceOf(CaffeineTeacherCache.class, teacherCache);
+        assertEquals(teacherCount, teacherService.findAll().size());
+
+        jdbcTemplate.update("UPDATE TEACHERS SET last_name = 'Renamed' WHERE id = ?", teacherId);
+
+        assertEquals(TEST_TEACHER_LAST_NAME, teacherService.findById(teacherId).getLastName());
+        teacherCache.invalidateAll();
+        assertEquals("Renamed", teacherService.findById(teacherId).getLastName());
+    }
+
+    @Test
+    @DisplayName("Near cache - Writes through JPA invalidate the list and the entries")
+    void shouldInvalidateOnJpaWrites() {
+        assertEquals(teacherCount, teacherService.findAll().size());
+        Teacher teacher = teacherService.findById(teacherId);
+
+        teacherRepository.save(Teacher.builder().lastName("Other").firstName("Teacher").build());
+        teacherRepository.save(teacherRepository.findById(teacherId).orElseThrow().setLastName("Renamed"));
+
+        assertEquals(teacherCount + 1, teacherService.findAll().size());
+        assertEquals("Renamed", teacherService.findById(teacher.getId()).getLastName());
+    }
+}
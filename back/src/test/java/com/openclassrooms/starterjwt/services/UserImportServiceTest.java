@@ -0,0 +1,222 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.payload.response.UserImportResponse;
+import com.openclassrooms.starterjwt.payload.response.UserImportResponse.Status;
+import com.openclassrooms.starterjwt.repository.StoredPassword;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.PasswordHashingExecutor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static com.openclassrooms.starterjwt.testUtils.TestConstants.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserImportServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private UserImportService userImportService;
+
+    @BeforeEach
+    void setUp() {
+        userImportService = new UserImportService(userRepository, passwordEncoder, passwordHashingExecutor, jdbcTemplate,
+                transactionManager, Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), 2);
+        lenient().when(passwordHashingExecutor.submitBulk(any())).thenAnswer(invocation ->
+                CompletableFuture.supplyAsync(invocation.<Supplier<?>>getArgument(0), Runnable::run));
+    }
+
+
+    private static InputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("importCsv - Creates new users and reports duplicates and invalid rows")
+    @SuppressWarnings("unchecked")
+    void shouldImportCsv() throws Exception {
+        // Arrange
+        when(userRepository.findEmailsIn(anyCollection()))
+                .thenReturn(Collections.singleton(TEST_USER_EMAIL.toUpperCase()))
+                .thenReturn(Collections.emptySet());
+        when(passwordEncoder.encode(anyString())).thenReturn(TEST_USER_ENCODED_PASSWORD);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[] {1});
+        String csv = "password,email,firstName,lastName\n"
+                + "secret123," + TEST_USER_EMAIL + ",Alice,Martin\n"
+                + "secret123,\"new@studio.com\",\"Bob, Jr\",Durand\n"
+                + "\n"
+                + "secret123,NEW@studio.com,Bob,Durand\n"
+                + "short,other@studio.com,Eve,Moreau\n";
+
+        // Act
+        UserImportResponse response = userImportService.importCsv(body(csv));
+
+        // Assert
+        assertEquals(4, response.getTotal());
+        assertEquals(1, response.getCreated());
+        assertEquals(2, response.getDuplicates());
+        assertEquals(1, response.getInvalid());
+        assertEquals(Status.DUPLICATE, response.getRows().get(0).getStatus());
+        assertEquals(Status.CREATED, response.getRows().get(1).getStatus());
+        assertEquals(5, response.getRows().get(2).getLine());
+        assertEquals(Status.DUPLICATE, response.getRows().get(2).getStatus());
+        assertEquals("password size must be between 6 and 40", response.getRows().get(3).getMessage());
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        assertEquals(1, rows.getValue().size());
+        assertEquals(Arrays.asList("new@studio.com", "Durand", "Bob, Jr", TEST_USER_ENCODED_PASSWORD),
+                Arrays.asList(rows.getValue().get(0)).subList(0, 4));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("importNdjson - Reports rows whose insert was ignored as duplicates")
+    void shouldReportIgnoredInsertsAsDuplicates() throws Exception {
+        // Arrange
+        when(userRepository.findEmailsIn(anyCollection())).thenReturn(Collections.emptySet());
+        when(passwordEncoder.encode(anyString())).thenReturn("hash-a", "hash-b");
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[] {1, 0});
+
+        // Act
+        UserImportResponse response = userImportService.importNdjson(body(ndjsonRows("a@studio.com", "b@studio.com")));
+
+        // Assert
+        assertEquals(1, response.getCreated());
+        assertEquals(1, response.getDuplicates());
+        verify(userRepository, never()).findPasswordsByEmailIn(anyCollection());
+    }
+
+    @Test
+    @DisplayName("importNdjson - Reads back the stored hashes when the driver reports no row counts")
+    void shouldResolveRewrittenBatchFromStoredHashes() throws Exception {
+        // Arrange
+        when(userRepository.findEmailsIn(anyCollection())).thenReturn(Collections.emptySet());
+        when(passwordEncoder.encode("secret123")).thenReturn("hash-a", "hash-b");
+        List<List<Object[]>> inserted = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            inserted.add(invocation.getArgument(1));
+            return new int[] {Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO};
+        });
+        when(userRepository.findPasswordsByEmailIn(anyCollection())).thenAnswer(invocation -> Arrays.asList(
+                storedPassword("a@studio.com", (String) inserted.get(0).get(0)[3]),
+                storedPassword("B@studio.com", "hash-of-another-account")));
+
+        // Act
+        UserImportResponse response = userImportService.importNdjson(body(ndjsonRows("a@studio.com", "b@studio.com")));
+
+        // Assert
+        assertEquals(Status.CREATED, response.getRows().get(0).getStatus());
+        assertEquals(Status.DUPLICATE, response.getRows().get(1).getStatus());
+    }
+
+    @Test
+    @DisplayName("importNdjson - Reports the rows of a failed batch as failed and rolls it back")
+    void shouldReportFailedBatch() throws Exception {
+        // Arrange
+        when(userRepository.findEmailsIn(anyCollection())).thenReturn(Collections.emptySet());
+        when(passwordEncoder.encode(anyString())).thenReturn(TEST_USER_ENCODED_PASSWORD);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new QueryTimeoutException("timeout"));
+
+        // Act
+        UserImportResponse response = userImportService.importNdjson(body(ndjsonRows("a@studio.com", "b@studio.com")));
+
+        // Assert
+        assertEquals(0, response.getCreated());
+        assertEquals(2, response.getFailed());
+        verify(transactionManager).rollback(any());
+    }
+
+    private static String ndjsonRows(String... emails) {
+        StringBuilder ndjson = new StringBuilder();
+        for (String email : emails) {
+            ndjson.append("{\"email\":\"").append(email)
+                    .append("\",\"firstName\":\"Alice\",\"lastName\":\"Martin\",\"password\":\"secret123\"}\n");
+        }
+        return ndjson.toString();
+    }
+
+    private static StoredPassword storedPassword(String email, String password) {
+        return new StoredPassword() {
+            @Override
+            public String getEmail() {
+                return email;
+            }
+
+            @Override
+            public String getPassword() {
+                return password;
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("importCsv - Rejects a header without the required columns")
+    void shouldRejectCsvWithoutRequiredColumns() {
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> userImportService.importCsv(body("email,password\n")));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("importNdjson - Reports malformed lines and skips the insert when nothing is new")
+    void shouldImportNdjson() throws Exception {
+        // Arrange
+        when(userRepository.findEmailsIn(anyCollection())).thenReturn(Collections.singleton(TEST_USER_EMAIL));
+        String ndjson = "{\"email\":\"" + TEST_USER_EMAIL + "\",\"firstName\":\"Alice\",\"lastName\":\"Martin\",\"password\":\"secret123\"}\n"
+                + "{not json\n";
+
+        // Act
+        UserImportResponse response = userImportService.importNdjson(body(ndjson));
+
+        // Assert
+        assertEquals(2, response.getTotal());
+        assertEquals(Status.DUPLICATE, response.getRows().get(0).getStatus());
+        assertEquals(Status.INVALID, response.getRows().get(1).getStatus());
+        assertEquals("Malformed JSON", response.getRows().get(1).getMessage());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        verify(passwordEncoder, never()).encode(anyString());
+    }
+}
@@ -2,6 +2,9 @@ package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.jwt.TokenRevocationStore;
+import com.openclassrooms.starterjwt.security.jwt.VerifiedTokenCache;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -32,6 +35,15 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Mock
+    private UserDetailsCache userDetailsCache;
+
+    @Mock
+    private TokenRevocationStore tokenRevocationStore;
+
     private User mockUser;
 
     @BeforeEach
@@ -56,6 +68,9 @@ class UserServiceTest {
 
         // Assert
         verify(userRepository).deleteById(MOCK_USER_ID);
+        verify(verifiedTokenCache).invalidateUser(MOCK_USER_ID);
+        verify(userDetailsCache).invalidateUser(MOCK_USER_ID);
+        verify(tokenRevocationStore).revokeUser(MOCK_USER_ID);
     }
 
     @Test
@@ -0,0 +1,109 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WaitlistPromoterTest {
+
+    private static final Long SESSION_ID = 1L;
+    private static final int BATCH_SIZE = 2;
+
+    @Mock
+    private SessionService sessionService;
+
+    @Mock
+    private WaitlistRepository waitlistRepository;
+
+    private WaitlistPromoter waitlistPromoter;
+
+    @BeforeEach
+    void setUp() {
+        waitlistPromoter = new WaitlistPromoter(sessionService, waitlistRepository, BATCH_SIZE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        waitlistPromoter.shutdown();
+    }
+
+    @Test
+    @DisplayName("promote - Runs batches until one is not full")
+    void shouldPromoteInBatches() {
+        // Arrange
+        when(sessionService.promoteWaitlisted(SESSION_ID, BATCH_SIZE)).thenReturn(true, true, false);
+
+        // Act
+        waitlistPromoter.promote(SESSION_ID);
+
+        // Assert
+        verify(sessionService, times(3)).promoteWaitlisted(SESSION_ID, BATCH_SIZE);
+    }
+
+    @Test
+    @DisplayName("promote - A failing batch is left to the sweep")
+    void shouldSwallowPromotionFailures() {
+        // Arrange
+        when(sessionService.promoteWaitlisted(SESSION_ID, BATCH_SIZE)).thenThrow(new IllegalStateException("boom"));
+
+        // Act
+        waitlistPromoter.promote(SESSION_ID);
+
+        // Assert
+        verify(sessionService, times(1)).promoteWaitlisted(SESSION_ID, BATCH_SIZE);
+    }
+
+    @Test
+    @DisplayName("onSeatReleased - Runs off the calling thread and merges requests for a queued session")
+    void shouldMergeQueuedRequests() throws InterruptedException {
+        // Arrange
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        when(sessionService.promoteWaitlisted(SESSION_ID, BATCH_SIZE)).thenAnswer(invocation -> {
+            running.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            done.countDown();
+            return false;
+        });
+
+        // Act
+        waitlistPromoter.onSeatReleased(new SeatReleasedEvent(SESSION_ID));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 10; i++) {
+            waitlistPromoter.onSeatReleased(new SeatReleasedEvent(SESSION_ID));
+        }
+        release.countDown();
+
+        // Assert
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        verify(sessionService, timeout(1000).times(2)).promoteWaitlisted(SESSION_ID, BATCH_SIZE);
+    }
+
+    @Test
+    @DisplayName("sweep - Schedules sessions with free seats and people waiting")
+    void shouldSweepPromotableSessions() {
+        // Arrange
+        when(waitlistRepository.findPromotableSessionIds()).thenReturn(Arrays.asList(SESSION_ID, 2L));
+
+        // Act
+        waitlistPromoter.sweep();
+
+        // Assert
+        verify(sessionService, timeout(1000)).promoteWaitlisted(SESSION_ID, BATCH_SIZE);
+        verify(sessionService, timeout(1000)).promoteWaitlisted(2L, BATCH_SIZE);
+    }
+}
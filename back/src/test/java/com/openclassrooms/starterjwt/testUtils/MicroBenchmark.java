@@ -0,0 +1,106 @@
+package com.openclassrooms.starterjwt.testUtils;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Minimal warm-up / measure loop used by the *Benchmark classes. Those classes are not picked up by the
+ * default surefire includes and are run on demand, e.g. {@code mvn test -Dtest=AuthTokenFilterBenchmark}.
+ */
+public class MicroBenchmark {
+
+    private MicroBenchmark() {
+    }
+
+    public interface Operation {
+        void run() throws Exception;
+    }
+
+    public static class Result {
+        private final String name;
+        private final long operations;
+        private final long elapsedNanos;
+
+        Result(String name, long operations, long elapsedNanos) {
+            this.name = name;
+            this.operations = operations;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double opsPerSecond() {
+            return operations * 1_000_000_000d / elapsedNanos;
+        }
+
+        public double nanosPerOp() {
+            return (double) elapsedNanos / operations;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-45s %12.0f ops/s %10.0f ns/op", name, opsPerSecond(), nanosPerOp());
+        }
+    }
+
+    public static class Latencies {
+        private final String name;
+        private final long[] sortedNanos;
+
+        Latencies(String name, long[] nanos) {
+            this.name = name;
+            this.sortedNanos = nanos.clone();
+            Arrays.sort(this.sortedNanos);
+        }
+
+        public double percentileMillis(double percentile) {
+            int index = (int) Math.ceil(percentile / 100d * sortedNanos.length) - 1;
+            return sortedNanos[Math.max(0, index)] / 1_000_000d;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-45s p50 %8.2f ms   p99 %8.2f ms", name, percentileMillis(50), percentileMillis(99));
+        }
+    }
+
+    public static Latencies latencies(String name, int warmupOperations, int measuredOperations, Operation operation) throws Exception {
+        for (int i = 0; i < warmupOperations; i++) {
+            operation.run();
+        }
+
+        long[] nanos = new long[measuredOperations];
+        for (int i = 0; i < measuredOperations; i++) {
+            long start = System.nanoTime();
+            operation.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+
+        Latencies latencies = new Latencies(name, nanos);
+        System.out.println(latencies);
+        return latencies;
+    }
+
+    public static Result measure(String name, int warmupOperations, int measuredOperations, Operation operation) throws Exception {
+        for (int i = 0; i < warmupOperations; i++) {
+            operation.run();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < measuredOperations; i++) {
+            operation.run();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Result result = new Result(name, measuredOperations, elapsed);
+        System.out.println(result);
+        return result;
+    }
+
+    public static void compare(Result baseline, Result candidate) {
+        System.out.printf(Locale.ROOT, "%s vs %s: %.2fx throughput%n",
+                candidate.getName(), baseline.getName(), candidate.opsPerSecond() / baseline.opsPerSecond());
+    }
+}
@@ -0,0 +1,53 @@
+package com.openclassrooms.starterjwt.testUtils;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the statements Hibernate sends from the thread that last called {@link #reset()}, once registered with
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}. Background work such as the
+ * waitlist promotion is left out. The counted statements are also kept, for tests that need their text.
+ */
+public class SqlStatementCounter implements StatementInspector {
+    private static final AtomicInteger SELECTS = new AtomicInteger();
+    private static final AtomicInteger STATEMENTS = new AtomicInteger();
+    private static final List<String> RECORDED = new CopyOnWriteArrayList<>();
+    private static volatile Thread counted;
+
+    @Override
+    public String inspect(String sql) {
+        if (Thread.currentThread() != counted) {
+            return sql;
+        }
+        STATEMENTS.incrementAndGet();
+        RECORDED.add(sql);
+        if (sql.trim().toLowerCase(Locale.ROOT).startsWith("select")) {
+            SELECTS.incrementAndGet();
+        }
+        return sql;
+    }
+
+    public static void reset() {
+        counted = Thread.currentThread();
+        SELECTS.set(0);
+        STATEMENTS.set(0);
+        RECORDED.clear();
+    }
+
+    public static int selects() {
+        return SELECTS.get();
+    }
+
+    public static int statements() {
+        return STATEMENTS.get();
+    }
+
+    public static List<String> recorded() {
+        return new ArrayList<>(RECORDED);
+    }
+}
@@ -82,6 +82,7 @@ describe('AppComponent', () => {
     expect(logoutLink).toBeTruthy();
 
     jest.spyOn(sessionService, 'logOut');
+    const authLogoutSpy = jest.spyOn(TestBed.inject(AuthService), 'logout').mockReturnValue(of(undefined));
 
     ngZone.run(() => {
       component.logout();
@@ -92,6 +93,7 @@ describe('AppComponent', () => {
     let loginLink = fixture.debugElement.query(By.css('[routerLink="login"]'));
     let meLinkAfterLogout = fixture.debugElement.query(By.css('[routerLink="me"]'));
     expect(sessionService.logOut).toHaveBeenCalled();
+    expect(authLogoutSpy).toHaveBeenCalled();
     component.$isLogged().subscribe(isLogged => {
       expect(isLogged).toBe(false);
     });
@@ -22,6 +22,8 @@ export class AppComponent {
   }
 
   public logout(): void {
+    // Sent before the local session is cleared, so the request still carries the access token.
+    this.authService.logout(this.sessionService.sessionInformation?.refreshToken).subscribe({ error: () => undefined });
     this.sessionService.logOut();
     this.router.navigate([''])
   }
@@ -21,4 +21,8 @@ export class AuthService {
   public login(loginRequest: LoginRequest): Observable<SessionInformation> {
     return this.httpClient.post<SessionInformation>(`${this.pathService}/login`, loginRequest);
   }
+
+  public logout(refreshToken?: string): Observable<void> {
+    return this.httpClient.post<void>(`${this.pathService}/logout`, { refreshToken });
+  }
 }
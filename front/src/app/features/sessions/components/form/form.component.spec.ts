@@ -38,7 +38,8 @@ describe('FormComponent', () => {
     name: 'testSession',
     description: 'test session description',
     date: new Date(),
-    teacher_id: 1
+    teacher_id: 1,
+    capacity: 12
   };
 
   beforeEach(async () => {
@@ -105,6 +106,7 @@ describe('FormComponent', () => {
       expect(component.sessionForm?.contains('date')).toBe(true);
       expect(component.sessionForm?.contains('teacher_id')).toBe(true);
       expect(component.sessionForm?.contains('description')).toBe(true);
+      expect(component.sessionForm?.contains('capacity')).toBe(true);
     });
 
     it('should initialize the form with the session details when the route includes "update"', () => {
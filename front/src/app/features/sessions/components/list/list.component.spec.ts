@@ -1,9 +1,11 @@
-import { HttpClientModule } from '@angular/common/http';
 import { ComponentFixture, TestBed } from '@angular/core/testing';
 import { MatCardModule } from '@angular/material/card';
 import { MatIconModule } from '@angular/material/icon';
 import { expect } from '@jest/globals';
+import { of } from 'rxjs';
 import { SessionService } from 'src/app/services/session.service';
+import { Session } from '../../interfaces/session.interface';
+import { SessionApiService } from '../../services/session-api.service';
 
 import { ListComponent } from './list.component';
 
@@ -17,11 +19,24 @@ describe('ListComponent', () => {
     }
   }
 
+  const firstSession = { id: 1, name: 'First' } as Session;
+  const secondSession = { id: 2, name: 'Second' } as Session;
+
+  const mockSessionApiService = {
+    page: jest.fn()
+  }
+
   beforeEach(async () => {
+    mockSessionApiService.page.mockReset();
+    mockSessionApiService.page.mockReturnValueOnce(of({ sessions: [firstSession], nextCursor: 'next' }));
+
     await TestBed.configureTestingModule({
       declarations: [ListComponent],
-      imports: [HttpClientModule, MatCardModule, MatIconModule],
-      providers: [{ provide: SessionService, useValue: mockSessionService }]
+      imports: [MatCardModule, MatIconModule],
+      providers: [
+        { provide: SessionService, useValue: mockSessionService },
+        { provide: SessionApiService, useValue: mockSessionApiService }
+      ]
     })
       .compileComponents();
 
@@ -33,4 +48,29 @@ describe('ListComponent', () => {
   it('should create', () => {
     expect(component).toBeTruthy();
   });
+
+  it('should only load the first page on init', () => {
+    expect(mockSessionApiService.page).toHaveBeenCalledTimes(1);
+    expect(mockSessionApiService.page).toHaveBeenCalledWith(undefined);
+    expect(component.sessions).toEqual([firstSession]);
+    expect(component.nextCursor).toBe('next');
+  });
+
+  it('should append the next page when loadMore is called', () => {
+    mockSessionApiService.page.mockReturnValueOnce(of({ sessions: [secondSession], nextCursor: null }));
+
+    component.loadMore();
+
+    expect(mockSessionApiService.page).toHaveBeenLastCalledWith('next');
+    expect(component.sessions).toEqual([firstSession, secondSession]);
+    expect(component.nextCursor).toBeNull();
+  });
+
+  it('should not request anything once the last page is loaded', () => {
+    component.nextCursor = null;
+
+    component.loadMore();
+
+    expect(mockSessionApiService.page).toHaveBeenCalledTimes(1);
+  });
 });
@@ -1,5 +1,4 @@
-import { Component } from '@angular/core';
-import { Observable } from 'rxjs';
+import { Component, OnInit } from '@angular/core';
 import { SessionInformation } from '../../../../interfaces/sessionInformation.interface';
 import { SessionService } from '../../../../services/session.service';
 import { Session } from '../../interfaces/session.interface';
@@ -10,9 +9,11 @@ import { SessionApiService } from '../../services/session-api.service';
   templateUrl: './list.component.html',
   styleUrls: ['./list.component.scss']
 })
-export class ListComponent {
+export class ListComponent implements OnInit {
 
-  public sessions$: Observable<Session[]> = this.sessionApiService.all();
+  public sessions: Session[] = [];
+  public nextCursor: string | null = null;
+  public loading = false;
 
   constructor(
     private sessionService: SessionService,
@@ -22,4 +23,27 @@ export class ListComponent {
   get user(): SessionInformation | undefined {
     return this.sessionService.sessionInformation;
   }
+
+  public ngOnInit(): void {
+    this.loadPage();
+  }
+
+  // Further pages are only fetched when asked for, not followed up front.
+  public loadMore(): void {
+    if (this.nextCursor && !this.loading) {
+      this.loadPage(this.nextCursor);
+    }
+  }
+
+  private loadPage(cursor?: string): void {
+    this.loading = true;
+    this.sessionApiService.page(cursor).subscribe({
+      next: (page) => {
+        this.sessions = this.sessions.concat(page.sessions);
+        this.nextCursor = page.nextCursor;
+        this.loading = false;
+      },
+      error: () => this.loading = false
+    });
+  }
 }
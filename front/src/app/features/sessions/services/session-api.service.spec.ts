@@ -1,22 +1,52 @@
-import { HttpClientModule } from '@angular/common/http';
+import { HttpClientTestingModule, HttpTestingController } from '@angular/common/http/testing';
 import { TestBed } from '@angular/core/testing';
 import { expect } from '@jest/globals';
+import { subscribeSpyTo } from '@hirez_io/observer-spy';
+import { Session } from '../interfaces/session.interface';
 
 import { SessionApiService } from './session-api.service';
 
 describe('SessionsService', () => {
   let service: SessionApiService;
+  let httpMock: HttpTestingController;
 
   beforeEach(() => {
     TestBed.configureTestingModule({
       imports:[
-        HttpClientModule
+        HttpClientTestingModule
       ]
     });
     service = TestBed.inject(SessionApiService);
+    httpMock = TestBed.inject(HttpTestingController);
+  });
+
+  afterEach(() => {
+    httpMock.verify();
   });
 
   it('should be created', () => {
     expect(service).toBeTruthy();
   });
+
+  describe('page', () => {
+    it('should return one page and the cursor of the next one', async () => {
+      const sessions = [{ id: 1, name: 'First' } as Session];
+
+      const observerSpy = subscribeSpyTo(service.page());
+      const req = httpMock.expectOne('api/session');
+      req.flush(sessions, { headers: { 'X-Next-Cursor': 'next' } });
+      await observerSpy.onComplete();
+
+      expect(observerSpy.getLastValue()).toEqual({ sessions, nextCursor: 'next' });
+    });
+
+    it('should send the cursor and report the last page', async () => {
+      const observerSpy = subscribeSpyTo(service.page('next'));
+      const req = httpMock.expectOne((request) => request.url === 'api/session' && request.params.get('cursor') === 'next');
+      req.flush([]);
+      await observerSpy.onComplete();
+
+      expect(observerSpy.getLastValue()).toEqual({ sessions: [], nextCursor: null });
+    });
+  });
 });
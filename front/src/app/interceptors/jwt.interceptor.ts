@@ -1,19 +1,58 @@
-import { HttpHandler, HttpInterceptor, HttpRequest } from "@angular/common/http";
+import { HttpBackend, HttpClient, HttpErrorResponse, HttpEvent, HttpHandler, HttpInterceptor, HttpRequest } from "@angular/common/http";
 import { Injectable } from "@angular/core";
+import { Observable, throwError } from 'rxjs';
+import { catchError, finalize, shareReplay, switchMap, tap } from 'rxjs/operators';
+import { SessionInformation } from '../interfaces/sessionInformation.interface';
 import { SessionService } from '../services/session.service';
 
 @Injectable({ providedIn: 'root' })
 export class JwtInterceptor implements HttpInterceptor {
-  constructor(private sessionService: SessionService) {}
+  // Bypasses the interceptor chain, so the refresh call is not itself intercepted.
+  private readonly httpClient: HttpClient;
+  private refreshing$: Observable<SessionInformation> | null = null;
 
-  public intercept(request: HttpRequest<any>, next: HttpHandler) {
-    if (this.sessionService.isLogged) {
-      request = request.clone({
-        setHeaders: {
-          Authorization: `Bearer ${this.sessionService.sessionInformation!.token}`,
-        },
-      });
+  constructor(private sessionService: SessionService, httpBackend: HttpBackend) {
+    this.httpClient = new HttpClient(httpBackend);
+  }
+
+  public intercept(request: HttpRequest<any>, next: HttpHandler): Observable<HttpEvent<any>> {
+    if (!this.sessionService.isLogged) {
+      return next.handle(request);
+    }
+    return next.handle(this.withToken(request)).pipe(
+      catchError((error) => {
+        const refreshToken = this.sessionService.sessionInformation?.refreshToken;
+        if (!(error instanceof HttpErrorResponse) || error.status !== 401 || !refreshToken) {
+          return throwError(() => error);
+        }
+        return this.refresh(refreshToken).pipe(
+          catchError((refreshError) => {
+            this.sessionService.logOut();
+            return throwError(() => refreshError);
+          }),
+          switchMap(() => next.handle(this.withToken(request)))
+        );
+      })
+    );
+  }
+
+  private withToken(request: HttpRequest<any>): HttpRequest<any> {
+    return request.clone({
+      setHeaders: {
+        Authorization: `Bearer ${this.sessionService.sessionInformation!.token}`,
+      },
+    });
+  }
+
+  // Concurrent 401s share a single refresh, as the server accepts each refresh token only once.
+  private refresh(refreshToken: string): Observable<SessionInformation> {
+    if (!this.refreshing$) {
+      this.refreshing$ = this.httpClient.post<SessionInformation>('api/auth/refresh', { refreshToken }).pipe(
+        tap((session) => this.sessionService.logIn(session)),
+        finalize(() => this.refreshing$ = null),
+        shareReplay(1)
+      );
     }
-    return next.handle(request);
+    return this.refreshing$;
   }
 }
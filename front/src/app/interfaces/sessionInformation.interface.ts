@@ -7,4 +7,5 @@ export interface SessionInformation {
   firstName: string;
   lastName: string;
   admin: boolean;
+  refreshToken?: string;
 }